@@ -0,0 +1,78 @@
+package info.rmarcus.dag.anytime;
+
+import java.util.List;
+
+import sirens.models.TaskQueue;
+
+/**
+ * The best schedule a search found within its {@link SearchBudget}, and why it stopped.
+ */
+public class AnytimeResult {
+	/** The lower bound of a search that cannot prove one. */
+	public static final int NO_BOUND = Integer.MIN_VALUE;
+
+	public enum Status {
+		/** the search covered its whole space, so no schedule it could reach is better */
+		OPTIMAL,
+
+		/** a heuristic search stopped by its own rules */
+		CONVERGED,
+
+		/** the budget ran out first; the schedule is the best found until then */
+		TRUNCATED
+	}
+
+	private final List<TaskQueue> schedule;
+	private final int cost;
+	private final int lowerBound;
+	private final Status status;
+
+	public AnytimeResult(List<TaskQueue> schedule, int cost, int lowerBound, Status status) {
+		this.schedule = schedule;
+		this.cost = cost;
+		this.lowerBound = lowerBound;
+		this.status = status;
+	}
+
+	/**
+	 * The schedule, built.
+	 */
+	public List<TaskQueue> getSchedule() {
+		return schedule;
+	}
+
+	/**
+	 * The schedule's cost, as the search measures it (latency for the
+	 * permutation solvers, dollar cost for CCA).
+	 */
+	public int getCost() {
+		return cost;
+	}
+
+	public int getLowerBound() {
+		return lowerBound;
+	}
+
+	public boolean hasLowerBound() {
+		return lowerBound != NO_BOUND;
+	}
+
+	/**
+	 * How far the cost may be above the best possible, or -1 if there is no lower bound.
+	 */
+	public int getGap() {
+		if (!hasLowerBound())
+			return -1;
+
+		return Math.max(0, cost - lowerBound);
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	@Override
+	public String toString() {
+		return status + " cost: " + cost + (hasLowerBound() ? " gap: " + getGap() : "");
+	}
+}
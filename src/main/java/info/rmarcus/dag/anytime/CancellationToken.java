@@ -0,0 +1,17 @@
+package info.rmarcus.dag.anytime;
+
+/**
+ * A flag a caller sets to stop a search early. Searches on several threads
+ * may share one token; every worker checks it before each unit of work.
+ */
+public class CancellationToken {
+	private volatile boolean cancelled;
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+}
@@ -0,0 +1,14 @@
+package info.rmarcus.dag.anytime;
+
+/**
+ * Told whenever a search finds a better schedule. Parallel searches may
+ * call it from any of their workers, so it must be thread safe.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+	/**
+	 * @param incumbentCost the cost of the best schedule found so far
+	 * @param lowerBound a proven lower bound on the best cost, or {@link AnytimeResult#NO_BOUND}
+	 */
+	void onProgress(int incumbentCost, int lowerBound);
+}
@@ -0,0 +1,68 @@
+package info.rmarcus.dag.anytime;
+
+/**
+ * When a search has to stop: at a wall-clock deadline, when its
+ * cancellation token is set, or (for an unlimited budget) only when it
+ * finishes by its own rules. Also carries the listener the search reports
+ * its progress to.
+ *
+ * Budgets are immutable; the with* methods return modified copies.
+ */
+public class SearchBudget {
+	private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+	// in System.nanoTime() terms
+	private final long deadline;
+	private final CancellationToken token;
+	private final ProgressListener listener;
+
+	private SearchBudget(long deadline, CancellationToken token, ProgressListener listener) {
+		this.deadline = deadline;
+		this.token = token;
+		this.listener = listener;
+	}
+
+	public static SearchBudget unlimited() {
+		return new SearchBudget(NO_DEADLINE, new CancellationToken(), (cost, bound) -> {});
+	}
+
+	/**
+	 * A budget that runs out the given number of milliseconds from now.
+	 */
+	public static SearchBudget ofMillis(long millis) {
+		return unlimited().withDeadline(System.nanoTime() + millis * 1000000L);
+	}
+
+	/**
+	 * @param deadline the time to stop, in System.nanoTime() terms
+	 */
+	public SearchBudget withDeadline(long deadline) {
+		return new SearchBudget(deadline, token, listener);
+	}
+
+	public SearchBudget withToken(CancellationToken token) {
+		return new SearchBudget(deadline, token, listener);
+	}
+
+	public SearchBudget withListener(ProgressListener listener) {
+		return new SearchBudget(deadline, token, listener);
+	}
+
+	public CancellationToken getToken() {
+		return token;
+	}
+
+	/**
+	 * Whether the search should stop now. Cheap enough to ask once per node.
+	 */
+	public boolean isExhausted() {
+		if (token.isCancelled())
+			return true;
+
+		return deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0;
+	}
+
+	public void report(int incumbentCost, int lowerBound) {
+		listener.onProgress(incumbentCost, lowerBound);
+	}
+}
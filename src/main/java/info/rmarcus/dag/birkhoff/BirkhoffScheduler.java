@@ -1,14 +1,17 @@
 package info.rmarcus.dag.birkhoff;
 
+import sirens.dag.Actualizer;
 import sirens.dag.CostAnalyzer;
 import sirens.dag.DAGGenerator;
 import sirens.models.Task;
 import sirens.models.TaskQueue;
-import info.rmarcus.birkhoffvonneumann.CoeffAndMatrix;
 import info.rmarcus.birkhoffvonneumann.learners.generalized_loss.MHJointPermutationLearner;
+import info.rmarcus.dag.anytime.AnytimeResult;
+import info.rmarcus.dag.anytime.AnytimeResult.Status;
+import info.rmarcus.dag.anytime.SearchBudget;
 import info.rmarcus.dag.cca.CCAScheduler;
-import info.rmarcus.dag.permsolve.PermutationSolver;
 import info.rmarcus.ggen4j.graph.Vertex;
+import info.rmarcus.javautil.ExecutionPolicy;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -16,12 +19,27 @@ import java.util.List;
 
 public class BirkhoffScheduler {
 
+	private static final int REPORT_EVERY = 100;
+
 	private List<Task> tasks;
 	private MHJointPermutationLearner jps;
+	private PermutationLoss loss;
+	private List<Chain> chains;
+
+	// the best matrices found by either mode, and their loss
+	private List<double[][]> best;
+	private double bestLoss = Double.MAX_VALUE;
 
 	public void measure(int n) {
 		Collection<Vertex> vertices = DAGGenerator.getSparseLU(n);
 		tasks = DAGGenerator.verticesToTasks(vertices);
+
+		// anything learned was over the old tasks
+		jps = null;
+		loss = null;
+		chains = null;
+		best = null;
+		bestLoss = Double.MAX_VALUE;
 				
 		System.out.println("Number of tasks: " + tasks.size());
 		
@@ -45,27 +63,165 @@ public class BirkhoffScheduler {
 
 	}
 
+	/**
+	 * Runs the permutation learner over the tasks of the last {@link #measure(int)}
+	 * for up to the given number of iterations, or until the budget runs out.
+	 */
+	public AnytimeResult learn(int iterations, SearchBudget budget) {
+		if (jps == null)
+			jps = new MHJointPermutationLearner(new int[] { tasks.size(), tasks.size() }, getLoss());
+
+		int reported = Integer.MAX_VALUE;
+		boolean truncated = false;
+		for (int i = 0; i < iterations; i++) {
+			if (budget.isExhausted()) {
+				truncated = true;
+				break;
+			}
+
+			jps.iterate();
+
+			// scoring the best is a full evaluation, so only report now and then
+			if (i % REPORT_EVERY == 0) {
+				int best = (int) getLoss().applyAsDouble(jps.getBest());
+				if (best < reported) {
+					reported = best;
+					budget.report(best, AnytimeResult.NO_BOUND);
+				}
+			}
+		}
+
+		// with no iterations run, the learner may have no best yet
+		List<double[][]> found = jps.getBest();
+		if (found != null)
+			offer(found, getLoss().applyAsDouble(found));
+
+		return result(truncated || budget.isExhausted());
+	}
+
+	/**
+	 * Runs several independent learners at once, each with its own loss, over
+	 * the tasks of the last {@link #measure(int)}. The chains run in epochs of
+	 * {@value #REPORT_EVERY} iterations; after each epoch, the best schedule
+	 * of every chain is collected and the best overall is kept and reported.
+	 *
+	 * The learners have no way to set their state, so a chain cannot take up
+	 * another's best (nor swap temperatures with it); the chains only meet
+	 * in the shared incumbent.
+	 * @param iterations the iterations each chain runs
+	 */
+	public AnytimeResult learnChains(int numChains, int iterations, ExecutionPolicy policy, SearchBudget budget) {
+		if (chains == null || chains.size() != numChains) {
+			chains = new ArrayList<>(numChains);
+			for (int i = 0; i < numChains; i++)
+				chains.add(new Chain(new PermutationLoss(tasks)));
+		}
+
+		// each learner starts from a best of its own, so there is an incumbent even if no epoch runs
+		if (best == null) {
+			for (Chain c : chains)
+				c.seed();
+		}
+
+		boolean truncated = false;
+		for (int done = 0; done < iterations; done += REPORT_EVERY) {
+			if (budget.isExhausted()) {
+				truncated = true;
+				break;
+			}
+
+			int epoch = Math.min(REPORT_EVERY, iterations - done);
+			List<Double> losses = policy.map(chains, c -> c.run(epoch, budget));
+
+			double before = bestLoss;
+			for (int i = 0; i < numChains; i++)
+				offer(chains.get(i).best, losses.get(i));
+
+			if (bestLoss < before)
+				budget.report((int) bestLoss, AnytimeResult.NO_BOUND);
+		}
+
+		return result(truncated || budget.isExhausted());
+	}
+
+	/**
+	 * The best schedule found by either mode, or, before anything has been
+	 * learned, the tasks in order with every queue cut where the topological
+	 * order goes back.
+	 */
 	public List<TaskQueue> getBest() {
-		return permToTQs(jps.getBest().get(0), jps.getBest().get(1));
+		List<double[][]> d = (best != null ? best : identities(tasks.size()));
+		return Actualizer.actualize(getLoss().toQueues(d));
 	}
-	
-	private List<TaskQueue> permToTQs(double[][] d, double[][] topo) {
-		int[] perm = CoeffAndMatrix.asFlatPerm(d);
-		int[] topoPerm = CoeffAndMatrix.asFlatPerm(topo);
-		
-		List<Task> t = new ArrayList<>(tasks.size());
-		for (int i : perm) {
-			t.add(tasks.get(i));
+
+	private PermutationLoss getLoss() {
+		if (loss == null)
+			loss = new PermutationLoss(tasks);
+
+		return loss;
+	}
+
+	private void offer(List<double[][]> candidate, double candidateLoss) {
+		if (candidate != null && candidateLoss < bestLoss) {
+			best = copy(candidate);
+			bestLoss = candidateLoss;
 		}
-		
-		List<TaskQueue> tqs = PermutationSolver.topoSolve(t, topoPerm);
-		return tqs;
 	}
-	
-	private double loss(List<double[][]> d) {
-		List<TaskQueue> tqs = permToTQs(d.get(0), d.get(1));
-		int cost = CostAnalyzer.getLatency(tqs);
-		return cost;
+
+	private AnytimeResult result(boolean truncated) {
+		List<TaskQueue> toR = getBest();
+		return new AnytimeResult(toR, CostAnalyzer.getLatency(toR), AnytimeResult.NO_BOUND,
+				(truncated ? Status.TRUNCATED : Status.CONVERGED));
+	}
+
+	private static List<double[][]> identities(int n) {
+		double[][] identity = new double[n][n];
+		for (int i = 0; i < n; i++)
+			identity[i][i] = 1.0;
+
+		List<double[][]> toR = new ArrayList<>(2);
+		toR.add(identity);
+		toR.add(identity);
+		return toR;
+	}
+
+	// the learners may keep changing the matrices they hand out
+	private static List<double[][]> copy(List<double[][]> d) {
+		List<double[][]> toR = new ArrayList<>(d.size());
+		for (double[][] m : d) {
+			double[][] c = new double[m.length][];
+			for (int i = 0; i < m.length; i++)
+				c[i] = m[i].clone();
+			toR.add(c);
+		}
+
+		return toR;
+	}
+
+	private class Chain {
+		private final PermutationLoss loss;
+		private final MHJointPermutationLearner learner;
+		private List<double[][]> best;
+
+		private Chain(PermutationLoss loss) {
+			this.loss = loss;
+			this.learner = new MHJointPermutationLearner(new int[] { tasks.size(), tasks.size() }, loss);
+		}
+
+		private void seed() {
+			List<double[][]> initial = learner.getBest();
+			if (initial != null)
+				offer(initial, loss.applyAsDouble(initial));
+		}
+
+		// the loss of this chain's best after running it
+		private double run(int iterations, SearchBudget budget) {
+			for (int i = 0; i < iterations && !budget.isExhausted(); i++)
+				learner.iterate();
+
+			best = copy(learner.getBest());
+			return loss.applyAsDouble(best);
+		}
 	}
 
 	public static void main(String[] args) {
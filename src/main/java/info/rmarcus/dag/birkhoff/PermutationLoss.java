@@ -0,0 +1,120 @@
+package info.rmarcus.dag.birkhoff;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToDoubleFunction;
+
+import info.rmarcus.birkhoffvonneumann.CoeffAndMatrix;
+import info.rmarcus.dag.permsolve.PermutationSolver;
+import sirens.dag.EvaluationCache;
+import sirens.dag.LongMaxHeap;
+import sirens.dag.TopologicalOrders;
+import sirens.models.Task;
+import sirens.models.TaskGraph;
+import sirens.models.TaskQueue;
+import sirens.models.states.MachineType;
+
+/**
+ * The latency of the schedule a pair of doubly stochastic matrices stands
+ * for: the first orders the tasks, the second gives the priorities of a
+ * topological sort, and a queue ends wherever the next task comes earlier in
+ * that sort (see {@link PermutationSolver#topoPartition(List, int[])}).
+ *
+ * The schedule is timed without building queues or tasks, from buffers
+ * allocated once, and only if the graph's {@link EvaluationCache} has not
+ * seen the same queues before. The only allocations per proposal are the two
+ * flat permutations {@link CoeffAndMatrix#asFlatPerm} returns. A loss must
+ * stay confined to one thread; give each learner its own.
+ */
+public class PermutationLoss implements ToDoubleFunction<List<double[][]>> {
+	private final List<Task> tasks;
+	private final TaskGraph graph;
+	private final TopologicalOrders orders;
+	private final EvaluationCache cache;
+
+	// the task ID of each task in the list, and of each graph index
+	private final int[] idAt;
+	private final int[] idOf;
+
+	// the tasks in the order of the current proposal, and each ID's position in its topological sort
+	private final Task[] ordered;
+	private final List<Task> orderedView;
+	private final int[] ids;
+	private final int[] topoIdx;
+
+	// scratch for the topological sort, and the proposal's priorities for it
+	private final int[] pending;
+	private final LongMaxHeap ready;
+	private final int[] order;
+	private int[] topoPerm;
+	private final IntUnaryOperator priority;
+	private final IntPredicate separatorAfter;
+
+	public PermutationLoss(List<Task> tasks) {
+		this.tasks = tasks;
+		this.graph = TaskGraph.of(tasks);
+		this.orders = TopologicalOrders.of(graph);
+		this.cache = EvaluationCache.of(graph);
+
+		int n = tasks.size();
+		idAt = new int[n];
+		idOf = new int[n];
+		for (int i = 0; i < n; i++) {
+			idAt[i] = tasks.get(i).getID();
+			idOf[graph.indexOf(tasks.get(i))] = idAt[i];
+		}
+
+		ordered = new Task[n];
+		orderedView = Arrays.asList(ordered);
+		ids = new int[n];
+		topoIdx = new int[n];
+
+		pending = new int[n];
+		ready = new LongMaxHeap(n);
+		order = new int[n];
+		topoPerm = new int[n];
+		priority = i -> topoPerm[idOf[i]];
+		separatorAfter = pos -> pos + 1 < ids.length && topoIdx[ids[pos + 1]] < topoIdx[ids[pos]];
+	}
+
+	@Override
+	public double applyAsDouble(List<double[][]> d) {
+		int[] perm = CoeffAndMatrix.asFlatPerm(d.get(0));
+		topoPerm = CoeffAndMatrix.asFlatPerm(d.get(1));
+
+		for (int pos = 0; pos < perm.length; pos++) {
+			ordered[pos] = tasks.get(perm[pos]);
+			ids[pos] = idAt[perm[pos]];
+		}
+
+		orders.byPriority(priority, pending, ready, order);
+		for (int pos = 0; pos < order.length; pos++)
+			topoIdx[idOf[order[pos]]] = pos;
+
+		// many proposals come down to the same queues
+		return cache.getLatency(orderedView, separatorAfter, MachineType.SMALL);
+	}
+
+	/**
+	 * Scores every proposal, one after another, into out.
+	 */
+	public void scoreAll(List<List<double[][]>> proposals, double[] out) {
+		for (int i = 0; i < proposals.size(); i++)
+			out[i] = applyAsDouble(proposals.get(i));
+	}
+
+	/**
+	 * The unbuilt queues of the schedule the matrices stand for.
+	 */
+	public List<TaskQueue> toQueues(List<double[][]> d) {
+		int[] perm = CoeffAndMatrix.asFlatPerm(d.get(0));
+
+		Task[] t = new Task[perm.length];
+		for (int pos = 0; pos < perm.length; pos++)
+			t[pos] = tasks.get(perm[pos]);
+
+		return PermutationSolver.topoPartition(Arrays.asList(t), CoeffAndMatrix.asFlatPerm(d.get(1)));
+	}
+}
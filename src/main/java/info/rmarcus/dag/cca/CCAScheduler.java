@@ -1,9 +1,14 @@
 package info.rmarcus.dag.cca;
 
+import info.rmarcus.dag.anytime.AnytimeResult;
+import info.rmarcus.dag.anytime.AnytimeResult.Status;
+import info.rmarcus.dag.anytime.SearchBudget;
+import info.rmarcus.javautil.ExecutionPolicy;
 import sirens.dag.Actualizer;
-import sirens.dag.CostAnalyzer;
-import sirens.dag.DAGException;
+import sirens.dag.IncrementalActualizer;
+import sirens.dag.TopologicalOrders;
 import sirens.models.Task;
+import sirens.models.TaskGraph;
 import sirens.models.TaskQueue;
 import sirens.models.states.MachineType;
 
@@ -13,29 +18,233 @@ import java.util.stream.Collectors;
 public class CCAScheduler {
 
     private List<Task> topo;
-    private List<Task> rtopo;
+    private int rounds;
 
     public CCAScheduler(Collection<Task> tasks) {
         this.topo = tasks.stream()
                 .sorted(Comparator.comparingInt(Task::getID))
                 .collect(Collectors.toList());
+    }
+
+    public Collection<TaskQueue> schedule(int deadline) {
+        return schedule(deadline, SearchBudget.unlimited()).getSchedule();
+    }
+
+    /**
+     * Like {@link #schedule(int)}, but stops merging clusters when the budget
+     * runs out. The result's cost is the schedule's dollar cost.
+     */
+    public AnytimeResult schedule(int deadline, SearchBudget budget) {
+        List<TaskQueue> toR = initialClustering();
+
+        // keep the schedule timed as we go, so each candidate merge only
+        // re-times the tasks it can actually move
+        IncrementalActualizer timed = new IncrementalActualizer(toR);
+
+        // task start and finish times, updated after each merge rather than recomputed
+        EstLftTracker times = new EstLftTracker(timed, deadline);
+
+        Clustering c = cluster(toR, timed, times, Integer.MAX_VALUE, budget);
+        rounds = c.rounds;
+
+        return new AnytimeResult(Actualizer.actualize(c.queues), c.cost, AnytimeResult.NO_BOUND,
+                (c.truncated ? Status.TRUNCATED : Status.CONVERGED));
+    }
+
+    public DeadlineSearchResult autoDeadlineSchedule(ExecutionPolicy policy) {
+        return autoDeadlineSchedule(policy, SearchBudget.unlimited());
+    }
 
-        this.rtopo = new ArrayList<>(topo.size());
-
-        // do a reverse topological sort (i.e. with the edges flipped)
-        Set<Task> remaining = new HashSet<>(tasks);
-        Set<Task> complete = new HashSet<>();
-        while (!remaining.isEmpty()) {
-            Task n = remaining.stream()
-                    .filter(t -> complete.containsAll(t.getDependents().keySet()))
-                    .findAny().orElseThrow(() -> new DAGException("DAG has cycles!"));
-            remaining.remove(n);
-            complete.add(n);
-            rtopo.add(n);
+    /**
+     * Runs CCA under a range of deadlines, treating each as a hard limit on
+     * the schedule's latency, and finds the tightest one at which it still
+     * reaches its cheapest schedule.
+     *
+     * Without a limit, the deadline does not change which clusters CCA merges:
+     * moving it moves every LFT, and so every priority, by the same amount.
+     * So the search first runs CCA without a limit, which gives the cheapest
+     * cost and the top of the bracket. The bottom is a bound no schedule can
+     * beat: the longest chain of tasks, each at its smallest latency over the
+     * machine types, with every edge zeroed (merging can zero any of them, and
+     * LARGE latencies can be smaller). Each round runs CCA under deadlines
+     * spread evenly through the bracket, one per worker, then narrows the
+     * bracket to the gap between the tightest deadline that reaches the
+     * cheapest cost and the deadline just below it.
+     *
+     * Every run starts from one timed copy of the initial clustering and its
+     * start and finish times, so nothing is re-timed or re-sorted per deadline.
+     * Deadlines whose run missed them are in the curve as
+     * {@link DeadlineSearchResult#MISSED}.
+     */
+    public DeadlineSearchResult autoDeadlineSchedule(ExecutionPolicy policy, SearchBudget budget) {
+        IncrementalActualizer initial = new IncrementalActualizer(initialClustering());
+        EstLftTracker initialTimes = new EstLftTracker(initial, 0);
+        int criticalPath = initialTimes.getCriticalPathLength();
+        int bound = latencyLowerBound();
+
+        // by deadline; only runs whose schedule met their deadline
+        Map<Integer, Clustering> met = new HashMap<>();
+        SortedMap<Integer, Integer> curve = new TreeMap<>();
+        TreeSet<Integer> tried = new TreeSet<>();
+        IncrementalActualizer free = initial.copy();
+        Clustering unlimited = cluster(initialClustering(), free, initialTimes.copy(free, criticalPath),
+                Integer.MAX_VALUE, budget);
+        met.put(unlimited.deadline, unlimited);
+        curve.put(unlimited.deadline, unlimited.cost);
+
+        // everything at or below lo misses the cheapest cost found so far; hi reaches it
+        int floor = Math.min(bound, unlimited.latency) - 1;
+        int lo = floor;
+        int hi = unlimited.latency;
+        while (hi - lo > 1 && !budget.isExhausted()) {
+            int width = hi - lo;
+            List<Integer> deadlines = new ArrayList<>();
+            int numProbes = Math.min(policy.getParallelism(), width - 1);
+            // at most width - 1 probes, so they are distinct and strictly inside the bracket
+            for (int i = 1; i <= numProbes; i++)
+                deadlines.add(lo + (int) ((long) width * i / (numProbes + 1)));
+
+            List<Clustering> probed = policy.map(deadlines, d -> {
+                IncrementalActualizer timed = initial.copy();
+                return cluster(initialClustering(), timed, initialTimes.copy(timed, d), d, budget);
+            });
+
+            tried.addAll(deadlines);
+            for (Clustering c : probed) {
+                if (c.latency <= c.deadline) {
+                    met.put(c.deadline, c);
+                    curve.put(c.deadline, c.cost);
+                } else {
+                    curve.put(c.deadline, DeadlineSearchResult.MISSED);
+                }
+            }
+
+            hi = cheapest(met.values()).deadline;
+            Integer below = tried.lower(hi);
+            lo = (below == null ? floor : Math.max(floor, below));
         }
+
+        Clustering best = cheapest(met.values());
+        rounds = best.rounds;
+
+        AnytimeResult result = new AnytimeResult(Actualizer.actualize(best.queues), best.cost, AnytimeResult.NO_BOUND,
+                (budget.isExhausted() ? Status.TRUNCATED : Status.CONVERGED));
+        return new DeadlineSearchResult(result, best.deadline, criticalPath, bound, curve);
     }
 
-    public Collection<TaskQueue> schedule(int deadline) {
+    // the longest chain of tasks, each at its smallest latency on any machine
+    // type, with no communication: no schedule's tasks can all end sooner
+    private int latencyLowerBound() {
+        TaskGraph graph = TaskGraph.of(topo);
+        int[] ends = new int[graph.size()];
+
+        int toR = 0;
+        for (int t : TopologicalOrders.of(graph).forward()) {
+            int start = 0;
+            for (int k = graph.parentsStart(t); k < graph.parentsEnd(t); k++)
+                start = Math.max(start, ends[graph.parentAt(k)]);
+
+            int latency = Integer.MAX_VALUE;
+            for (MachineType mt : MachineType.values()) {
+                if (graph.hasLatency(t, mt))
+                    latency = Math.min(latency, graph.getLatency(t, mt));
+            }
+
+            ends[t] = start + latency;
+            toR = Math.max(toR, ends[t]);
+        }
+
+        return toR;
+    }
+
+    // the cheapest, then the one with the tightest deadline
+    private static Clustering cheapest(Collection<Clustering> clusterings) {
+        return clusterings.stream()
+                .min(Comparator.<Clustering>comparingInt(c -> c.cost).thenComparingInt(c -> c.deadline))
+                .get();
+    }
+
+    /**
+     * Merges clusters until no merge helps.
+     * @param toR the clusters timed, in the order of their handles
+     * @param latencyLimit merges that would push the latency over this (or
+     * further over it) are skipped
+     */
+    private Clustering cluster(List<TaskQueue> toR, IncrementalActualizer timed, EstLftTracker times,
+                               int latencyLimit, SearchBudget budget) {
+        Map<TaskQueue, Integer> handles = new IdentityHashMap<>();
+        for (int i = 0; i < toR.size(); i++)
+            handles.put(toR.get(i), i);
+
+        Clustering toReturn = new Clustering();
+        while (true) {
+            toReturn.rounds++;
+            if (!attemptMerge(toR, timed, handles, times, latencyLimit, budget)) {
+                toReturn.truncated = budget.isExhausted();
+                break;
+            }
+
+            budget.report(timed.getCost(), AnytimeResult.NO_BOUND);
+        }
+
+        toReturn.queues = toR;
+        toReturn.cost = timed.getCost();
+        toReturn.latency = timed.getLatency();
+        toReturn.deadline = (latencyLimit == Integer.MAX_VALUE ? toReturn.latency : latencyLimit);
+        return toReturn;
+    }
+
+    public Collection<TaskQueue> batchedSchedule(ExecutionPolicy policy) {
+        return batchedSchedule(policy, SearchBudget.unlimited()).getSchedule();
+    }
+
+    /**
+     * Like {@link #schedule(int, SearchBudget)}, but each round scores every
+     * pair of clusters (in parallel, each worker on its own copy of the
+     * schedule) before merging anything. Each cluster's best improving partner
+     * is kept, and as many of those merges as possible are applied in cluster
+     * order before scoring again. Two merges conflict if they share a cluster.
+     * Each merge is re-checked against the schedule as it stands when it is
+     * applied, so the cost never goes up.
+     *
+     * There is no deadline: the classic mode only uses it to rank clusters,
+     * and its candidate filter lets every pair through in the end anyway.
+     * Clusters stay ordered by task ID, which is a topological order, so no
+     * merge can create a cycle.
+     */
+    public AnytimeResult batchedSchedule(ExecutionPolicy policy, SearchBudget budget) {
+        IncrementalActualizer timed = new IncrementalActualizer(initialClustering());
+
+        boolean truncated = false;
+        rounds = 0;
+        while (true) {
+            rounds++;
+            int applied = applyDisjoint(timed, scoreAllPairs(timed, policy, budget));
+
+            if (budget.isExhausted()) {
+                truncated = true;
+                break;
+            }
+
+            if (applied == 0)
+                break;
+
+            budget.report(timed.getCost(), AnytimeResult.NO_BOUND);
+        }
+
+        return new AnytimeResult(Actualizer.actualize(timed.toTaskQueues()), timed.getCost(), AnytimeResult.NO_BOUND,
+                (truncated ? Status.TRUNCATED : Status.CONVERGED));
+    }
+
+    /**
+     * How many rounds of scoring the last schedule took. The classic mode
+     * rescans after every merge; the batched mode after every batch.
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    private List<TaskQueue> initialClustering() {
         // first, cluster each task into it's own task queue (the initial clustering)
         List<TaskQueue> toR = new ArrayList<>(topo.size());
         for (Task t : topo) {
@@ -44,21 +253,96 @@ public class CCAScheduler {
             toR.add(toAdd);
         }
 
-        while (attemptMerge(toR, deadline));
         return toR;
+    }
 
+    // the best improving merge of each cluster with a later one
+    private List<Merge> scoreAllPairs(IncrementalActualizer timed, ExecutionPolicy policy, SearchBudget budget) {
+        // every handle starts out as a singleton cluster and merges never add one
+        int[] live = new int[topo.size()];
+        int k = 0;
+        for (int q = 0; q < topo.size(); q++) {
+            if (timed.getQueueSize(q) != 0)
+                live[k++] = q;
+        }
+        final int numLive = k;
+
+        // rows are dealt out round robin, so every chunk gets long and short ones
+        int numChunks = Math.min(numLive, policy.getParallelism() * 4);
+        List<Integer> chunks = new ArrayList<>(numChunks);
+        for (int c = 0; c < numChunks; c++)
+            chunks.add(c);
+
+        int aloneCost = timed.getCost();
+        List<List<Merge>> scored = policy.map(chunks, c -> {
+            IncrementalActualizer mine = timed.copy();
+            List<Merge> toR = new ArrayList<>();
+
+            for (int i = c; i < numLive; i += numChunks) {
+                if (budget.isExhausted())
+                    break;
+
+                Merge best = null;
+                for (int j = i + 1; j < numLive; j++) {
+                    int small = scoreCombination(mine, live[i], live[j], MachineType.SMALL);
+                    int large = scoreCombination(mine, live[i], live[j], MachineType.LARGE);
+
+                    // same choice of machine as the classic mode
+                    MachineType mt = (small <= large ? MachineType.SMALL : MachineType.LARGE);
+                    int cost = Math.min(small, large);
+                    if (cost < aloneCost && (best == null || cost < best.cost))
+                        best = new Merge(live[i], live[j], mt, cost);
+                }
+
+                if (best != null)
+                    toR.add(best);
+            }
+
+            return toR;
+        });
+
+        List<Merge> toR = new ArrayList<>();
+        scored.forEach(toR::addAll);
+        return toR;
+    }
+
+    private int applyDisjoint(IncrementalActualizer timed, List<Merge> merges) {
+        // in cluster order, as the classic mode would come across them; taking
+        // the biggest gains first instead gets stuck early on fork/join graphs
+        merges.sort(Comparator.comparingInt(m -> m.a));
+
+        boolean[] touched = new boolean[topo.size()];
+        int applied = 0;
+        for (Merge m : merges) {
+            if (touched[m.a] || touched[m.b])
+                continue;
+
+            // the merges already applied this round may have eaten this one's gain
+            int before = timed.getCost();
+            timed.mergeQueues(m.a, m.b, m.mt);
+            if (timed.getCost() >= before) {
+                timed.rollback();
+                continue;
+            }
+
+            timed.commit();
+            touched[m.a] = true;
+            touched[m.b] = true;
+            applied++;
+        }
+
+        return applied;
     }
 
-    private boolean attemptMerge(List<TaskQueue> toR, int deadline) {
+    private boolean attemptMerge(List<TaskQueue> toR, IncrementalActualizer timed,
+                                 Map<TaskQueue, Integer> handles, EstLftTracker times,
+                                 int latencyLimit, SearchBudget budget) {
         // compute the priority of each cluster, which is the max
         // priority of a task within a cluster
         Map<TaskQueue, Integer> priority = new HashMap<>();
 
         for (TaskQueue tq : toR) {
-            priority.put(tq, computePriority(tq.getTasks(), deadline)
-                    .values().stream()
-                    .mapToInt(i -> i)
-                    .max().orElse(0));
+            priority.put(tq, times.getClusterPriority(handles.get(tq)));
         }
 
         // for each cluster, find all the clusters with a lower priority and consider a merge.
@@ -72,17 +356,23 @@ public class CCAScheduler {
             // 2. the pair on a small machine
             // 3. the pair on a large machine
             System.out.println("Considering " + candidates.length + " for merging...");
-            int aloneCost = score(toR);
+            int aloneCost = timed.getCost();
+
+            // a schedule still over its limit may merge, as long as it gets no slower
+            int limit = Math.max(latencyLimit, timed.getLatency());
             for (int i = 0; i < candidates.length; i++) {
+                if (budget.isExhausted())
+                    return false;
+
                 TaskQueue c1 = candidates[i];
                 for (int j = i+1; j < candidates.length; j++) {
                     TaskQueue c2 = candidates[j];
 
                     // first, try merging the clusters into a small machine
-                    int smallMergedCost = scoreCombination(toR, c1, c2, MachineType.SMALL);
+                    int smallMergedCost = scoreCombination(timed, handles, c1, c2, MachineType.SMALL, limit);
 
                     // second, try merging the clusters into a large machine
-                    int largeMergedCost = scoreCombination (toR, c1, c2, MachineType.LARGE);
+                    int largeMergedCost = scoreCombination(timed, handles, c1, c2, MachineType.LARGE, limit);
 
                     if (smallMergedCost <= largeMergedCost && smallMergedCost < aloneCost) {
                         // accept the merge onto the small machine
@@ -94,6 +384,7 @@ public class CCAScheduler {
                         c2.getTasks().forEach(toAdd::add);
                         toAdd.sortTasksByID();
                         toR.add(toAdd);
+                        acceptMerge(timed, handles, times, c1, c2, toAdd);
                         return true;
                     }
 
@@ -107,6 +398,7 @@ public class CCAScheduler {
                         c2.getTasks().forEach(toAdd::add);
                         toAdd.sortTasksByID();
                         toR.add(toAdd);
+                        acceptMerge(timed, handles, times, c1, c2, toAdd);
                         return true;
                     }
                 }
@@ -118,87 +410,31 @@ public class CCAScheduler {
 
     }
 
-    private Map<Task, Integer> computePriority(Collection<Task> tasks, int deadline) {
-        Map<Task, Integer> toR = new HashMap<>();
-
-        Map<Task, Integer> est = computeEST();
-        Map<Task, Integer> lft = computeLFT(deadline);
-
-        for (Task t : tasks) {
-            toR.put(t, lft.get(t) - est.get(t));
-        }
-
-        return toR;
-    }
-
-    private int scoreCombination(Collection<TaskQueue> tqs, TaskQueue c1, TaskQueue c2, MachineType mt) {
-        Set<TaskQueue> withMerged = new HashSet<>(tqs);
-        withMerged.remove(c1);
-        withMerged.remove(c2);
-        TaskQueue merged = new TaskQueue(mt);
-        c1.getTasks().stream().forEach(merged::add);
-        c2.getTasks().stream().forEach(merged::add);
-        merged.sortTasksByID();
-        withMerged.add(merged);
-
-        return score(withMerged);
-    }
-
-    private int score(Collection<TaskQueue> tqs) {
-        for (TaskQueue tq : tqs) {
-            tq.unbuildAll();
-        }
-
-        return CostAnalyzer.findCostOfBuiltTasks(Actualizer.actualize(tqs));
+    private int scoreCombination(IncrementalActualizer timed, Map<TaskQueue, Integer> handles,
+                                 TaskQueue c1, TaskQueue c2, MachineType mt, int latencyLimit) {
+        return scoreCombination(timed, handles.get(c1), handles.get(c2), mt, latencyLimit);
     }
 
-    private Map<Task, Integer> computeEST() {
-        Map<Task, Integer> est = new HashMap<>();
-
-        // for each task in the list, set the earliest start time of each task to
-        // the max of the sum of each parents EST + their latency + their edge to me
-        for (Task next : topo) {
-            int v = next.getDependencies().keySet()
-                    .stream()
-                    .mapToInt(t -> communication(t, next) + latency(t) + est.get(t))
-                    .max().orElse(0);
-
-            est.put(next, v);
-        }
-
-        return est;
+    private int scoreCombination(IncrementalActualizer timed, int a, int b, MachineType mt) {
+        return scoreCombination(timed, a, b, mt, Integer.MAX_VALUE);
     }
 
-    private Map<Task, Integer> computeLFT(int deadline) {
-        Map<Task, Integer> lft = new HashMap<>();
-
-        // \set every node's LFT
-        // to the minimum of their children's: lft - latency - communication
-        for (Task next : rtopo) {
-            int v = next.getDependents().keySet()
-                    .stream()
-                    .mapToInt(t -> lft.get(t) + latency(t) + communication(next, t))
-                    .min().orElse(deadline);
-
+    // the cost of the merge, or INFEASIBLE if it would take the latency over the limit
+    private int scoreCombination(IncrementalActualizer timed, int a, int b, MachineType mt, int latencyLimit) {
+        int latency = timed.mergeQueues(a, b, mt);
+        int cost = (latency > latencyLimit ? IncrementalActualizer.INFEASIBLE : timed.getCost());
+        timed.rollback();
 
-            lft.put(next, v);
-        }
-
-        return lft;
-    }
-
-    private int latency(Task t) {
-        return t.getLatencies().get(t.getTaskQueue().getMachineType());
+        return cost;
     }
 
-    private int communication(Task t1, Task t2) {
-        if (t1.getTaskQueue() == t2.getTaskQueue())
-            return 0;
-
-        if (!t1.getDependents().containsKey(t2))
-            return 0;
-
-        return t1.getDependents().get(t2);
+    private void acceptMerge(IncrementalActualizer timed, Map<TaskQueue, Integer> handles, EstLftTracker times,
+                             TaskQueue c1, TaskQueue c2, TaskQueue merged) {
+        int handle = handles.remove(c1);
+        timed.mergeQueues(handle, handles.remove(c2), merged.getMachineType());
+        timed.commit();
+        times.queueChanged(handle);
+        handles.put(merged, handle);
     }
 
     private Set<Task> getSources(Collection<Task> tasks) {
@@ -212,4 +448,27 @@ public class CCAScheduler {
                 .filter(t -> t.getDependents().size() == 0)
                 .collect(Collectors.toSet());
     }
+
+    private static class Merge {
+        private final int a;
+        private final int b;
+        private final MachineType mt;
+        private final int cost;
+
+        private Merge(int a, int b, MachineType mt, int cost) {
+            this.a = a;
+            this.b = b;
+            this.mt = mt;
+            this.cost = cost;
+        }
+    }
+
+    private static class Clustering {
+        private List<TaskQueue> queues;
+        private int cost;
+        private int latency;
+        private int deadline;
+        private int rounds;
+        private boolean truncated;
+    }
 }
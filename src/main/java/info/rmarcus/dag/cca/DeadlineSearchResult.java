@@ -0,0 +1,76 @@
+package info.rmarcus.dag.cca;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import info.rmarcus.dag.anytime.AnytimeResult;
+
+/**
+ * What {@link CCAScheduler#autoDeadlineSchedule} found: the cheapest
+ * schedule, the tightest deadline it was found at, and the cost of every
+ * deadline tried along the way.
+ */
+public class DeadlineSearchResult {
+	/** The cost in the curve of a deadline the schedule found under it did not meet. */
+	public static final int MISSED = Integer.MAX_VALUE;
+
+	private final AnytimeResult best;
+	private final int deadline;
+	private final int criticalPathLength;
+	private final int latencyBound;
+	private final SortedMap<Integer, Integer> curve;
+
+	public DeadlineSearchResult(AnytimeResult best, int deadline, int criticalPathLength, int latencyBound,
+			SortedMap<Integer, Integer> curve) {
+		this.best = best;
+		this.deadline = deadline;
+		this.criticalPathLength = criticalPathLength;
+		this.latencyBound = latencyBound;
+		this.curve = Collections.unmodifiableSortedMap(new TreeMap<>(curve));
+	}
+
+	/**
+	 * The cheapest schedule found, built. Its cost is the schedule's dollar cost.
+	 */
+	public AnytimeResult getBest() {
+		return best;
+	}
+
+	/**
+	 * The tightest deadline the cheapest schedule was found under.
+	 */
+	public int getDeadline() {
+		return deadline;
+	}
+
+	/**
+	 * The critical path length of the graph with every task on its own SMALL
+	 * machine.
+	 */
+	public int getCriticalPathLength() {
+		return criticalPathLength;
+	}
+
+	/**
+	 * The bound no schedule's tasks can all end under, where the search
+	 * started: the longest chain of tasks at their smallest latencies, with no
+	 * communication.
+	 */
+	public int getLatencyBound() {
+		return latencyBound;
+	}
+
+	/**
+	 * The cost of the schedule found under each deadline tried, or
+	 * {@link #MISSED} where that schedule's latency was over the deadline.
+	 */
+	public SortedMap<Integer, Integer> getCurve() {
+		return curve;
+	}
+
+	@Override
+	public String toString() {
+		return "deadline: " + deadline + " " + best + " curve: " + curve;
+	}
+}
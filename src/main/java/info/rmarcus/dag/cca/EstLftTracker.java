@@ -0,0 +1,246 @@
+package info.rmarcus.dag.cca;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import sirens.dag.IncrementalActualizer;
+import sirens.dag.TopologicalOrders;
+import sirens.models.Task;
+import sirens.models.TaskGraph;
+
+/**
+ * Keeps each task's earliest start time (EST) and latest finish time (LFT)
+ * under the clustering held by an {@link IncrementalActualizer}, and each
+ * cluster's priority: the largest LFT - EST among its tasks.
+ *
+ * Communication between two tasks in the same cluster is free, so merging
+ * two clusters changes the EST of the merged tasks and their children, and
+ * the LFT of the merged tasks and their parents. After a merge only those
+ * tasks are recomputed, and the change is pushed downstream (for EST) or
+ * upstream (for LFT) only as far as values actually move.
+ */
+public class EstLftTracker {
+	private final IncrementalActualizer timed;
+	private final TaskGraph graph;
+	private final int deadline;
+
+	private final int[] est;
+	private final int[] lft;
+
+	// topological orders, and each task's position in them
+	private final int[] forward;
+	private final int[] reverse;
+	private final int[] forwardPos;
+	private final int[] reversePos;
+
+	// per queue handle; a dirty priority is recomputed when next read
+	private final int[] clusterPriority;
+	private final boolean[] clusterDirty;
+
+	// scratch for propagation
+	private final boolean[] queued;
+	private final PriorityQueue<Integer> frontier = new PriorityQueue<>();
+
+	public EstLftTracker(IncrementalActualizer timed, int deadline) {
+		this.timed = timed;
+		this.graph = timed.getGraph();
+		this.deadline = deadline;
+
+		int n = graph.size();
+		est = new int[n];
+		lft = new int[n];
+		queued = new boolean[n];
+
+		TopologicalOrders orders = TopologicalOrders.of(graph);
+		forward = orders.forward();
+		reverse = orders.reverse();
+		forwardPos = new int[n];
+		reversePos = new int[n];
+		for (int i = 0; i < n; i++) {
+			forwardPos[forward[i]] = i;
+			reversePos[reverse[i]] = i;
+		}
+
+		for (int t : forward)
+			est[t] = computeEST(t);
+		for (int t : reverse)
+			lft[t] = computeLFT(t);
+
+		clusterPriority = new int[n];
+		clusterDirty = new boolean[n];
+		Arrays.fill(clusterDirty, true);
+	}
+
+	private EstLftTracker(EstLftTracker other, IncrementalActualizer timed, int deadline) {
+		this.timed = timed;
+		this.graph = other.graph;
+		this.deadline = deadline;
+
+		// moving the deadline moves every LFT by the same amount, and no EST
+		est = other.est.clone();
+		lft = other.lft.clone();
+		for (int i = 0; i < lft.length; i++)
+			lft[i] += deadline - other.deadline;
+
+		forward = other.forward;
+		reverse = other.reverse;
+		forwardPos = other.forwardPos;
+		reversePos = other.reversePos;
+
+		queued = new boolean[est.length];
+		clusterPriority = new int[est.length];
+		clusterDirty = new boolean[est.length];
+		Arrays.fill(clusterDirty, true);
+	}
+
+	/**
+	 * A tracker for a copy of this tracker's schedule (see
+	 * {@link IncrementalActualizer#copy()}) under another deadline, without
+	 * recomputing anything.
+	 */
+	public EstLftTracker copy(IncrementalActualizer copied, int deadline) {
+		return new EstLftTracker(this, copied, deadline);
+	}
+
+	/**
+	 * The longest chain of task latencies and communication times, under the
+	 * current clustering.
+	 */
+	public int getCriticalPathLength() {
+		int max = 0;
+		for (int t = 0; t < est.length; t++)
+			max = Math.max(max, est[t] + latency(t));
+
+		return max;
+	}
+
+	public int getEST(Task t) {
+		return est[graph.indexOf(t)];
+	}
+
+	public int getLFT(Task t) {
+		return lft[graph.indexOf(t)];
+	}
+
+	/**
+	 * The largest LFT - EST among the tasks of the given queue, or 0 if it is empty.
+	 */
+	public int getClusterPriority(int q) {
+		if (clusterDirty[q]) {
+			int max = 0;
+			for (int i = 0; i < timed.getQueueSize(q); i++) {
+				int t = timed.getQueueMember(q, i);
+				max = (i == 0 ? lft[t] - est[t] : Math.max(max, lft[t] - est[t]));
+			}
+
+			clusterPriority[q] = max;
+			clusterDirty[q] = false;
+		}
+
+		return clusterPriority[q];
+	}
+
+	/**
+	 * Brings the times up to date after the given queue had others merged into
+	 * it (or changed machine type), and the edit was committed.
+	 */
+	public void queueChanged(int q) {
+		clusterDirty[q] = true;
+
+		// EST: the queue's tasks and their children may have new communication costs or latencies
+		for (int i = 0; i < timed.getQueueSize(q); i++) {
+			int t = timed.getQueueMember(q, i);
+			enqueue(t, forwardPos);
+			for (int k = graph.childrenStart(t); k < graph.childrenEnd(t); k++)
+				enqueue(graph.childAt(k), forwardPos);
+		}
+
+		while (!frontier.isEmpty()) {
+			int t = pop(forward);
+			int v = computeEST(t);
+			if (v == est[t])
+				continue;
+
+			est[t] = v;
+			markDirty(t);
+			for (int k = graph.childrenStart(t); k < graph.childrenEnd(t); k++)
+				enqueue(graph.childAt(k), forwardPos);
+		}
+
+		// LFT: likewise for the queue's tasks and their parents
+		for (int i = 0; i < timed.getQueueSize(q); i++) {
+			int t = timed.getQueueMember(q, i);
+			enqueue(t, reversePos);
+			for (int k = graph.parentsStart(t); k < graph.parentsEnd(t); k++)
+				enqueue(graph.parentAt(k), reversePos);
+		}
+
+		while (!frontier.isEmpty()) {
+			int t = pop(reverse);
+			int v = computeLFT(t);
+			if (v == lft[t])
+				continue;
+
+			lft[t] = v;
+			markDirty(t);
+			for (int k = graph.parentsStart(t); k < graph.parentsEnd(t); k++)
+				enqueue(graph.parentAt(k), reversePos);
+		}
+	}
+
+	// the max over parents of their EST, latency and communication to t
+	private int computeEST(int t) {
+		int v = 0;
+		boolean any = false;
+		for (int k = graph.parentsStart(t); k < graph.parentsEnd(t); k++) {
+			int p = graph.parentAt(k);
+			int candidate = communication(p, t, graph.parentWeightAt(k)) + latency(p) + est[p];
+			v = (any ? Math.max(v, candidate) : candidate);
+			any = true;
+		}
+
+		return v;
+	}
+
+	// the min over children of their LFT, latency and the communication from t,
+	// or the deadline for a sink
+	private int computeLFT(int t) {
+		int v = deadline;
+		boolean any = false;
+		for (int k = graph.childrenStart(t); k < graph.childrenEnd(t); k++) {
+			int c = graph.childAt(k);
+			int candidate = lft[c] + latency(c) + communication(t, c, graph.childWeightAt(k));
+			v = (any ? Math.min(v, candidate) : candidate);
+			any = true;
+		}
+
+		return v;
+	}
+
+	private int latency(int t) {
+		return graph.getLatency(t, timed.getMachineType(timed.getQueueHandle(t)));
+	}
+
+	private int communication(int from, int to, int weight) {
+		return (timed.getQueueHandle(from) == timed.getQueueHandle(to) ? 0 : weight);
+	}
+
+	private void markDirty(int t) {
+		clusterDirty[timed.getQueueHandle(t)] = true;
+	}
+
+	// the frontier holds positions in the current order, so it pops tasks in that order
+	private void enqueue(int t, int[] pos) {
+		if (queued[t])
+			return;
+
+		queued[t] = true;
+		frontier.add(pos[t]);
+	}
+
+	private int pop(int[] order) {
+		int t = order[frontier.poll()];
+		queued[t] = false;
+		return t;
+	}
+}
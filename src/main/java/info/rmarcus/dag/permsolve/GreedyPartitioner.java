@@ -0,0 +1,217 @@
+package info.rmarcus.dag.permsolve;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import sirens.dag.IncrementalActualizer;
+import sirens.models.Task;
+import sirens.models.TaskQueue;
+import sirens.models.states.MachineType;
+
+import info.rmarcus.dag.anytime.AnytimeResult;
+import info.rmarcus.dag.anytime.SearchBudget;
+
+/**
+ * Greedily removes separators from an ordered list of tasks, starting with
+ * every task in its own queue, for as long as removing one does not increase
+ * the schedule's latency.
+ *
+ * Each separator's score is the latency of the schedule with it removed,
+ * found by merging its two queues in an {@link IncrementalActualizer} and
+ * rolling back. Scores live in a priority queue and are refreshed lazily:
+ * after a removal, the separators on either side of it (whose queues just
+ * changed) are rescored at once, and any other separator is only rescored
+ * when it reaches the top of the queue with a score from an earlier step.
+ */
+public class GreedyPartitioner {
+	private final List<Task> tasks;
+	private final IncrementalActualizer schedule;
+
+	// the live separators, as a doubly linked list; separator i falls between task i and i+1
+	private final boolean[] alive;
+	private final int[] prev;
+	private final int[] next;
+
+	// the latest score of each separator, and the step it was computed in
+	private final int[] score;
+	private final int[] scoredAt;
+	private int step;
+
+	// (score, separator) pairs; see pack
+	private final PriorityQueue<Long> candidates = new PriorityQueue<>();
+	private int rescored;
+	private boolean truncated;
+
+	public GreedyPartitioner(List<Task> tasks) {
+		this.tasks = tasks;
+
+		List<TaskQueue> singletons = new ArrayList<>(tasks.size());
+		for (Task t : tasks) {
+			TaskQueue tq = new TaskQueue(MachineType.SMALL);
+			tq.add(t);
+			singletons.add(tq);
+		}
+		schedule = new IncrementalActualizer(singletons);
+
+		int numSeparators = Math.max(tasks.size() - 1, 0);
+		alive = new boolean[numSeparators];
+		prev = new int[numSeparators];
+		next = new int[numSeparators];
+		score = new int[numSeparators];
+		scoredAt = new int[numSeparators];
+
+		for (int i = 0; i < numSeparators; i++) {
+			alive[i] = true;
+			prev[i] = i - 1;
+			next[i] = (i + 1 < numSeparators ? i + 1 : -1);
+			rescore(i);
+		}
+	}
+
+	/**
+	 * Removes separators until every remaining removal would increase the latency.
+	 * @return the separators left, by the index of the task before each
+	 */
+	public Set<Integer> solve() {
+		return solve(SearchBudget.unlimited());
+	}
+
+	/**
+	 * Like {@link #solve()}, but stops early when the budget runs out.
+	 */
+	public Set<Integer> solve(SearchBudget budget) {
+		int currentCost = schedule.getLatency();
+		truncated = false;
+
+		while (true) {
+			if (budget.isExhausted()) {
+				truncated = true;
+				break;
+			}
+
+			int best = pollBest();
+			if (best == -1)
+				break;
+
+			if (score[best] == IncrementalActualizer.INFEASIBLE || score[best] > currentCost) {
+				// a stale score may hide a removal that helps, so look at
+				// every separator again before giving up
+				candidates.add(pack(score[best], best));
+				if (refreshStale())
+					continue;
+
+				break;
+			}
+
+			int newCost = remove(best);
+			if (newCost < currentCost)
+				budget.report(newCost, AnytimeResult.NO_BOUND);
+			currentCost = newCost;
+		}
+
+		Set<Integer> toR = new HashSet<>();
+		for (int i = 0; i < alive.length; i++) {
+			if (alive[i])
+				toR.add(i);
+		}
+
+		return toR;
+	}
+
+	/**
+	 * Whether the last solve stopped because its budget ran out.
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * The number of separator scores computed so far, including the initial ones.
+	 */
+	public int getRescored() {
+		return rescored;
+	}
+
+	// pops the separator with the lowest up-to-date score, rescoring stale ones on the way
+	private int pollBest() {
+		while (!candidates.isEmpty()) {
+			long top = candidates.poll();
+			int sep = unpackSeparator(top);
+
+			// superseded by a later score, or already removed
+			if (!alive[sep] || score[sep] != unpackScore(top))
+				continue;
+
+			if (scoredAt[sep] == step)
+				return sep;
+
+			rescore(sep);
+		}
+
+		return -1;
+	}
+
+	// rescores every separator whose score is from an earlier step
+	private boolean refreshStale() {
+		boolean any = false;
+		for (int i = 0; i < alive.length; i++) {
+			if (alive[i] && scoredAt[i] != step) {
+				rescore(i);
+				any = true;
+			}
+		}
+
+		return any;
+	}
+
+	private int remove(int sep) {
+		int latency = merge(sep);
+		schedule.commit();
+
+		alive[sep] = false;
+		if (prev[sep] != -1)
+			next[prev[sep]] = next[sep];
+		if (next[sep] != -1)
+			prev[next[sep]] = prev[sep];
+
+		step++;
+		if (prev[sep] != -1)
+			rescore(prev[sep]);
+		if (next[sep] != -1)
+			rescore(next[sep]);
+
+		return latency;
+	}
+
+	private void rescore(int sep) {
+		int latency = merge(sep);
+		schedule.rollback();
+
+		score[sep] = latency;
+		scoredAt[sep] = step;
+		candidates.add(pack(latency, sep));
+		rescored++;
+	}
+
+	private int merge(int sep) {
+		int left = schedule.getQueueHandle(tasks.get(sep));
+		int right = schedule.getQueueHandle(tasks.get(sep + 1));
+		return schedule.concatQueues(left, right, MachineType.SMALL);
+	}
+
+	// lower scores first; among equal scores, later separators first
+	private static long pack(int latency, int sep) {
+		return ((long) latency << 32) | (Integer.MAX_VALUE - sep);
+	}
+
+	private static int unpackScore(long packed) {
+		return (int) (packed >>> 32);
+	}
+
+	private static int unpackSeparator(long packed) {
+		return Integer.MAX_VALUE - (int) packed;
+	}
+}
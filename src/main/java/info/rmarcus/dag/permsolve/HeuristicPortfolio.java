@@ -0,0 +1,114 @@
+package info.rmarcus.dag.permsolve;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import sirens.dag.CostAnalyzer;
+import sirens.models.Task;
+import sirens.models.TaskQueue;
+import sirens.models.states.MachineType;
+import sirens.schedulers.EdgeZero;
+import sirens.schedulers.LinearCluster;
+
+import info.rmarcus.dag.permsolve.optimal.PruningFlyweight;
+
+/**
+ * A set of cheap schedulers run before an exact search, so the search can
+ * start with the best of their schedules as its incumbent.
+ */
+public class HeuristicPortfolio {
+	@FunctionalInterface
+	public interface Heuristic {
+		List<TaskQueue> schedule(List<Task> tasks);
+	}
+
+	private final Map<String, Heuristic> heuristics = new LinkedHashMap<>();
+
+	public HeuristicPortfolio add(String name, Heuristic h) {
+		heuristics.put(name, h);
+		return this;
+	}
+
+	/**
+	 * The greedy, forced and topological partitioners, edge zeroing and linear clustering.
+	 */
+	public static HeuristicPortfolio standard() {
+		return new HeuristicPortfolio()
+				.add("greedy", PermutationSolver::greedySolve)
+				.add("forced", t -> new PermutationSolver(t).forcedSolve(t))
+				.add("topo", t -> PermutationSolver.topoPartition(t, positions(t)))
+				.add("edge zero", t -> new EdgeZero().generateSchedule(t, MachineType.SMALL))
+				.add("linear cluster", t -> new LinearCluster().generateSchedule(t, MachineType.SMALL));
+	}
+
+	// a priority for each task ID that keeps the tasks in the order given
+	private static int[] positions(List<Task> tasks) {
+		int[] toR = new int[tasks.size()];
+		for (int i = 0; i < tasks.size(); i++)
+			toR[tasks.get(i).getID()] = i;
+
+		return toR;
+	}
+
+	/**
+	 * Runs every heuristic on the tasks and seeds the flyweight with the cheapest schedule.
+	 * A heuristic that fails is skipped.
+	 */
+	public Seeding seed(PruningFlyweight pf, List<Task> tasks) {
+		Seeding toR = new Seeding();
+
+		for (Entry<String, Heuristic> e : heuristics.entrySet()) {
+			int cost;
+			List<TaskQueue> schedule;
+			try {
+				schedule = e.getValue().schedule(tasks);
+				cost = CostAnalyzer.latencyOf(schedule);
+			} catch (RuntimeException ex) {
+				toR.failures.put(e.getKey(), ex);
+				continue;
+			}
+
+			toR.costs.put(e.getKey(), cost);
+			if (toR.winner == null || cost < toR.costs.get(toR.winner)) {
+				toR.winner = e.getKey();
+				pf.seed(cost, schedule);
+			}
+		}
+
+		return toR;
+	}
+
+	/**
+	 * What one run of the portfolio found.
+	 */
+	public static class Seeding {
+		private final Map<String, Integer> costs = new LinkedHashMap<>();
+		private final Map<String, RuntimeException> failures = new LinkedHashMap<>();
+		private @Nullable String winner;
+
+		/**
+		 * The name of the heuristic whose schedule seeded the flyweight, or null if none produced one.
+		 */
+		public @Nullable String getWinner() {
+			return winner;
+		}
+
+		/**
+		 * The latency of each heuristic's schedule, in the order they ran.
+		 */
+		public Map<String, Integer> getCosts() {
+			return costs;
+		}
+
+		/**
+		 * What each failed heuristic threw.
+		 */
+		public Map<String, RuntimeException> getFailures() {
+			return failures;
+		}
+	}
+}
@@ -4,32 +4,33 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Deque;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.ForkJoinPool;
 
-import org.eclipse.jdt.annotation.NonNull;
-import org.eclipse.jdt.annotation.Nullable;
 
 import sirens.dag.Actualizer;
 import sirens.dag.CostAnalyzer;
-import sirens.dag.DAGGenerator;
+import sirens.dag.DynamicTopologicalOrder;
+import sirens.dag.TopologicalOrders;
 import sirens.models.Task;
+import sirens.models.TaskGraph;
 import sirens.models.TaskQueue;
 import sirens.models.states.MachineType;
 
 import info.rmarcus.NullUtils;
+import info.rmarcus.dag.anytime.AnytimeResult;
+import info.rmarcus.dag.anytime.AnytimeResult.Status;
+import info.rmarcus.dag.anytime.SearchBudget;
+import info.rmarcus.dag.permsolve.optimal.DepthFirstSearch;
 import info.rmarcus.dag.permsolve.optimal.InOrderScheduleNode;
+import info.rmarcus.dag.permsolve.optimal.LowerBounds;
+import info.rmarcus.dag.permsolve.optimal.ParallelSearch;
 import info.rmarcus.dag.permsolve.optimal.PruningFlyweight;
 import info.rmarcus.dag.permsolve.optimal.ScheduleNode;
+import info.rmarcus.javautil.ExecutionPolicy;
 import info.rmarcus.javautil.IteratorUtilities;
 import info.rmarcus.javautil.StreamUtilities.Pair;
 
@@ -37,85 +38,15 @@ import info.rmarcus.javautil.StreamUtilities.Pair;
 public class PermutationSolver {
 
 
-	private static final int NUM_THREADS = 8;
-
-	private int[][] graph;
-	private int[] dfsStack;
-	private int[] neighborCount;
-	private int[] colors;
+	// the task graph, by task ID
+	private final DynamicTopologicalOrder dependencies;
 
 	public PermutationSolver(Collection<Task> tasks) {
-		buildGraph(tasks);
-	}
-
-	private void buildGraph(Collection<Task> tasks) {
-		graph = new int[tasks.size()][tasks.size()];
-
-		for (int i = 0; i < graph.length; i++)
-			Arrays.fill(graph[i], -1);
-
+		dependencies = new DynamicTopologicalOrder(tasks.size());
 		for (Task parent : tasks) {
-			int i = 0;
-			for (Task child : parent.getDependents().keySet()) {
-				graph[parent.getID()][i++] = child.getID();
-			}
+			for (Task child : parent.getDependents().keySet())
+				dependencies.addEdge(parent.getID(), child.getID());
 		}
-
-		dfsStack = new int[tasks.size()];
-		colors = new int[tasks.size()];
-		neighborCount = new int[tasks.size()];
-	}
-
-	private boolean checkGraphForCycle() {
-		Arrays.fill(dfsStack, -1);
-		Arrays.fill(colors, 0);
-		Arrays.fill(neighborCount, 0);
-
-		int stackPtr = 0;
-
-		// push the root onto the stack
-		dfsStack[0] = 0;
-		colors[0] = 1; // make it gray
-		stackPtr++;
-
-		while (stackPtr != 0) {
-			int taskID = dfsStack[stackPtr - 1];
-
-			// mark myself gray
-			colors[taskID] = 1;
-
-			int i = neighborCount[taskID];
-			if (graph[taskID][i] != -1) {
-				// add my next neighbor to the stack
-				for (; graph[taskID][i] != -1; i++) {
-					int child = graph[taskID][i];
-					if (colors[child] == 1) // found another gray! it's a cycle
-						return true;
-
-					if (colors[child] == 0) {
-						// add white nodes to the stack
-						dfsStack[stackPtr++] = child;
-						break;
-					}
-
-				}
-
-				neighborCount[taskID] = (graph[taskID][i] == -1 ? i : i + 1);
-				continue;
-			}
-
-			if (colors[taskID] == 1) {
-				// I was already gray, so set my color to black and
-				// stop (I'm being popped off the stack)
-				colors[taskID] = 2; 
-				dfsStack[--stackPtr] = -1;
-				continue;
-			}
-
-		}
-
-		return false;
-
 	}
 
 
@@ -123,50 +54,37 @@ public class PermutationSolver {
 		if (tasks.size() == 0)
 			return new LinkedList<>();
 
-		Deque<TaskQueue> toR = new LinkedList<>();
+		// the task graph plus an edge between consecutive tasks on each queue
+		DynamicTopologicalOrder order = dependencies.copy();
 
-		TaskQueue first = new TaskQueue(MachineType.SMALL);
-		toR.add(first);
+		// the tasks are distinct, so build plain lists and make queues of them at the end
+		Deque<List<Task>> queues = new LinkedList<>();
+		queues.push(new ArrayList<>());
 
 		for (Task t : tasks) {
-			TaskQueue proposed = toR.peek();
+			List<Task> proposed = queues.peek();
 			// check to see if adding an edge from the previous item in this task queue
 			// to this task would create a cycle
 
 			// if it's empty, then we're fine.
-			if (!proposed.getTasks().isEmpty()) {
-				Task last = proposed.getTasks().get(proposed.getTasks().size()-1);
-
-				int i = 0;
-				boolean alreadyPresent = false;
-				while (graph[last.getID()][i] != -1) {
-					if (graph[last.getID()][i] == t.getID()) {
-						alreadyPresent = true;
-						break;
-					}
-
-					i++;
-				}
-
-				if (!alreadyPresent)
-					graph[last.getID()][i] = t.getID();
+			if (!proposed.isEmpty()) {
+				Task last = proposed.get(proposed.size()-1);
 
-				if (checkGraphForCycle()) {
-					// this edge creates a cycle!
-					// first, remove the edge.
-					if (!alreadyPresent)
-						graph[last.getID()][i] = -1;
-
-					// add a new taskqueue
-					proposed = new TaskQueue(MachineType.SMALL);
-					toR.push(proposed);
+				if (!order.addEdge(last.getID(), t.getID())) {
+					// this edge creates a cycle! add a new taskqueue
+					proposed = new ArrayList<>();
+					queues.push(proposed);
 				}
 			}
 
 			proposed.add(t);
 		}
 
-		return new ArrayList<>(toR);
+		List<TaskQueue> toR = new ArrayList<>(queues.size());
+		for (List<Task> q : queues)
+			toR.add(new TaskQueue(MachineType.SMALL, q));
+
+		return toR;
 	}
 
 	private static int[][] getPairwiseCost(List<Task> tasks) {
@@ -186,17 +104,53 @@ public class PermutationSolver {
 	}
 
 	public static List<TaskQueue> solve(List<Task> t) {
+		return solve(t, new PruningFlyweight());
+	}
+
+	/**
+	 * Like {@link #solve(List)}, but starts from the given flyweight, which
+	 * may already hold a seed schedule (see {@link HeuristicPortfolio}). The
+	 * seed is returned if no partition of the tasks beats it. The flyweight
+	 * counts the nodes pruned, and those pruned against the seed (see
+	 * {@link PruningFlyweight#getPrunedBySeed()}).
+	 */
+	public static List<TaskQueue> solve(List<Task> t, PruningFlyweight pf) {
+		return solve(t, pf, SearchBudget.unlimited()).getSchedule();
+	}
+
+	/**
+	 * Like {@link #solve(List, PruningFlyweight)}, but stops when the budget
+	 * runs out, returning the best schedule found so far. The lower bound of
+	 * a truncated search is the lowest bound among the nodes left unexpanded.
+	 */
+	public static AnytimeResult solve(List<Task> t, PruningFlyweight pf, SearchBudget budget) {
+		return solve(t, pf, LowerBounds.standard(t), budget);
+	}
+
+	/**
+	 * Like {@link #solve(List, PruningFlyweight, SearchBudget)}, but prunes
+	 * with the given bounds, which count how many nodes each of them pruned
+	 * (see {@link LowerBounds#getPruned(int)}).
+	 */
+	public static AnytimeResult solve(List<Task> t, PruningFlyweight pf, LowerBounds bounds, SearchBudget budget) {
 		Deque<ScheduleNode> dq = new LinkedList<>();
-		PruningFlyweight pf = new PruningFlyweight();
 		int[][] costs = getPairwiseCost(t);
 
-		dq.push(new InOrderScheduleNode(t, pf, costs));
+		dq.push(new InOrderScheduleNode(t, pf, costs, bounds));
 
+		boolean truncated = false;
+		int reported = Integer.MAX_VALUE;
 		while (!dq.isEmpty()) {
+			if (budget.isExhausted()) {
+				truncated = true;
+				break;
+			}
+
 			ScheduleNode sn = NullUtils.orThrow(dq.remove());
 			System.out.println("Expanding: " + sn + " children: " + sn.getNumChildren());
 			for (int i = 0; i < sn.getNumChildren(); i++) {
-				ScheduleNode child = sn.getChild(i);
+				// no node is visited twice, so don't cache children (and keep the whole tree alive)
+				ScheduleNode child = sn.createChild(i);
 
 				if (child.isPruned()) {
 					//System.out.println("\tpruned: " + child);
@@ -206,66 +160,113 @@ public class PermutationSolver {
 				//System.out.println("\t" + child);
 				dq.add(child);
 			}
+
+			int best = pf.getBestObservedCost();
+			if (best < reported) {
+				reported = best;
+				budget.report(best, frontierBound(dq, best));
+			}
 		}
 
-		return pf.getBestPartitions().getSchedule();
 
+		int cost = pf.getBestObservedCost();
+		return exactResult(pf, (truncated ? frontierBound(dq, cost) : cost), truncated);
 	}
 
-	private static int evaluateRemovalOfPart(List<Task> t, Set<Integer> currentPartitions, int toRemove) {
-		Set<Integer> newParts = new HashSet<Integer>(currentPartitions);
-		newParts.remove(toRemove);
-		List<TaskQueue> tqs = buildQueuesWithPartitions(t, newParts);
-		final @Nullable List<TaskQueue> actualized = Actualizer.actualize(tqs);
+	// every schedule under the frontier is bounded by its lowest node's bound
+	private static int frontierBound(Collection<ScheduleNode> frontier, int incumbent) {
+		int toR = incumbent;
+		for (ScheduleNode sn : frontier)
+			toR = Math.min(toR, sn.getLowerBound());
 
-		if (actualized == null)
-			return -1;
+		return toR;
+	}
 
-		int costWithout = CostAnalyzer.getLatency(actualized);
-		return costWithout;
+	private static AnytimeResult exactResult(PruningFlyweight pf, int lowerBound, boolean truncated) {
+		return new AnytimeResult(pf.getBestSchedule(), pf.getBestObservedCost(), lowerBound,
+				(truncated ? Status.TRUNCATED : Status.OPTIMAL));
+	}
 
+	/**
+	 * Finds the same optimal schedule as {@link #solve(List)} with a depth
+	 * first search, which only holds the current path in memory.
+	 */
+	public static List<TaskQueue> depthFirstSolve(List<Task> t) {
+		return depthFirstSolve(t, new PruningFlyweight());
 	}
 
-	private static int evaluateRemovalOfRange(List<Task> t, Set<Integer> current, Set<Integer> toConsider) {
-		List<Task> localCopy = DAGGenerator.cloneTasks(t);
+	public static List<TaskQueue> depthFirstSolve(List<Task> t, PruningFlyweight pf) {
+		return depthFirstSolve(t, pf, SearchBudget.unlimited()).getSchedule();
+	}
 
-		int bestIdx = -1;
-		int bestVal = Integer.MAX_VALUE;
-		for (Integer i : toConsider) {
-			int cost = evaluateRemovalOfPart(localCopy, current, i);
+	public static AnytimeResult depthFirstSolve(List<Task> t, PruningFlyweight pf, SearchBudget budget) {
+		DepthFirstSearch dfs = new DepthFirstSearch(Integer.MAX_VALUE, budget);
+		boolean complete = dfs.search(new InOrderScheduleNode(t, pf, getPairwiseCost(t)));
 
-			if (cost == -1 || cost > bestVal) {
-				continue;
-			}
+		int cost = pf.getBestObservedCost();
+		return exactResult(pf, (complete ? cost : Math.min(cost, dfs.getFrontierBound())), !complete);
+	}
 
-			// otherwise, we have a new best value!
-			bestIdx = i;
-			bestVal = cost;
-		}
+	/**
+	 * Like {@link #depthFirstSolve(List)}, but searches schedules with fewer
+	 * queues first.
+	 * @see DepthFirstSearch#iterativeDeepening(ScheduleNode)
+	 */
+	public static List<TaskQueue> iterativeDeepeningSolve(List<Task> t) {
+		return iterativeDeepeningSolve(t, SearchBudget.unlimited()).getSchedule();
+	}
+
+	public static AnytimeResult iterativeDeepeningSolve(List<Task> t, SearchBudget budget) {
+		PruningFlyweight pf = new PruningFlyweight();
+		ScheduleNode root = new InOrderScheduleNode(t, pf, getPairwiseCost(t));
+		boolean complete = DepthFirstSearch.iterativeDeepening(root, budget);
 
-		return bestIdx;
+		int cost = pf.getBestObservedCost();
+		return exactResult(pf, (complete ? cost : Math.min(cost, root.getLowerBound())), !complete);
 	}
 
-	private static int findBestPartitionGreedy(List<Task> t, Set<Integer> currentPartitions, ExecutorService exec) {
-		List<Set<Integer>> chunks = new ArrayList<>();
-		IntStream.range(0, NUM_THREADS).forEach(i -> chunks.add(new HashSet<>()));
+	/**
+	 * Like {@link #parallelSolve(List, ExecutionPolicy)}, with the policy
+	 * given by the system properties.
+	 * @see ExecutionPolicy#fromSystemProperties()
+	 */
+	public static List<TaskQueue> parallelSolve(List<Task> t) {
+		return parallelSolve(t, ExecutionPolicy.fromSystemProperties());
+	}
 
-		int cnt = 0;
-		for (Integer i : currentPartitions) {
-			NullUtils.orThrow(chunks.get(cnt++ % NUM_THREADS)).add(i);
-		}
+	public static List<TaskQueue> parallelSolve(List<Task> t, ExecutionPolicy policy) {
+		return policy.withPool(pool -> parallelSolve(t, pool));
+	}
+
+	public static AnytimeResult parallelSolve(List<Task> t, ExecutionPolicy policy, SearchBudget budget) {
+		return policy.withPool(pool -> parallelSolve(t, pool, new PruningFlyweight(), budget));
+	}
+
+	/**
+	 * Finds the same optimal schedule as {@link #solve(List)}, searching
+	 * subtrees in parallel on the given pool.
+	 */
+	public static List<TaskQueue> parallelSolve(List<Task> t, ForkJoinPool pool) {
+		return parallelSolve(t, pool, new PruningFlyweight());
+	}
 
-		Set<Future<Integer>> futures = chunks.stream()
-				.map(s -> exec.submit(() -> evaluateRemovalOfRange(t, currentPartitions, s)))
-				.collect(Collectors.toSet());
+	public static List<TaskQueue> parallelSolve(List<Task> t, ForkJoinPool pool, PruningFlyweight pf) {
+		return parallelSolve(t, pool, pf, SearchBudget.unlimited()).getSchedule();
+	}
+
+	/**
+	 * Like {@link #parallelSolve(List, ForkJoinPool, PruningFlyweight)}, but
+	 * stops every worker when the budget runs out. The lower bound of a
+	 * truncated search is the root's.
+	 */
+	public static AnytimeResult parallelSolve(List<Task> t, ForkJoinPool pool, PruningFlyweight pf, SearchBudget budget) {
+		int[][] costs = getPairwiseCost(t);
 
-		return NullUtils.orThrow(
-				futures.stream()
-				.map(f -> NullUtils.wrapCall(f::get))
-				.map(opt -> opt.get())
-				.max((a, b) -> a - b)
-				.orElse(-1));
+		ScheduleNode root = new InOrderScheduleNode(t, pf, costs);
+		boolean complete = new ParallelSearch(pool, budget).search(root);
 
+		int cost = pf.getBestObservedCost();
+		return exactResult(pf, (complete ? cost : Math.min(cost, root.getLowerBound())), !complete);
 	}
 
 	private static List<TaskQueue> buildQueuesWithPartitions(List<Task> tasks, Set<Integer> partitions) {
@@ -282,42 +283,32 @@ public class PermutationSolver {
 	}
 
 	public static List<TaskQueue> greedySolve(List<Task> tasks) {
-		Set<Integer> partitions = new HashSet<>();
-		@NonNull ExecutorService es = NullUtils.orThrow(Executors.newFixedThreadPool(NUM_THREADS));
-
-		for (int i = 0; i < tasks.size()-1; i++)
-			partitions.add(i);
-
-		int currentCost = CostAnalyzer.getLatency(Actualizer.actualize(buildQueuesWithPartitions(tasks, partitions)));
-		while (true) {
-			@Nullable final Integer bestIdx = findBestPartitionGreedy(tasks, partitions, es);
-			if (bestIdx == -1)
-				break;
-
-			// see if removing this partition helps or hurts our cost
-			Set<Integer> withoutPartition = new HashSet<>(partitions);
-			withoutPartition.remove(bestIdx);
-
-			List<TaskQueue> without = buildQueuesWithPartitions(tasks, withoutPartition);
-
-			int withoutCost = CostAnalyzer.getLatency(Actualizer.actualize(without));
-
-			if (withoutCost <= currentCost) {
-				partitions.remove(bestIdx);
-				currentCost = withoutCost;
-			} else {
-				break;
-			}
-
-		};
-
-		es.shutdownNow();
-
+		Set<Integer> partitions = new GreedyPartitioner(tasks).solve();
 		return buildQueuesWithPartitions(tasks, partitions);
+	}
 
+	/**
+	 * Like {@link #greedySolve(List)}, but stops removing separators when the
+	 * budget runs out. Greedy search proves no lower bound.
+	 */
+	public static AnytimeResult greedySolve(List<Task> tasks, SearchBudget budget) {
+		GreedyPartitioner gp = new GreedyPartitioner(tasks);
+		Set<Integer> partitions = gp.solve(budget);
+
+		List<TaskQueue> schedule = Actualizer.actualize(buildQueuesWithPartitions(tasks, partitions));
+		return new AnytimeResult(schedule, CostAnalyzer.getLatency(schedule), AnytimeResult.NO_BOUND,
+				(gp.isTruncated() ? Status.TRUNCATED : Status.CONVERGED));
 	}
 
 	public static List<TaskQueue> topoSolve(List<Task> tasks, int[] topoPriority) {
+		return Actualizer.actualize(topoPartition(tasks, topoPriority));
+	}
+
+	/**
+	 * Partitions the tasks like {@link #topoSolve(List, int[])}, but returns
+	 * the queues without building them.
+	 */
+	public static List<TaskQueue> topoPartition(List<Task> tasks, int[] topoPriority) {
 		if (tasks.size() == 0)
 			return new LinkedList<>();
 		
@@ -326,27 +317,11 @@ public class PermutationSolver {
 		
 		// a mapping between an element ID and a topo order pos
 		int[] topoIdx = new int[tasks.size()];
-		
-		PriorityQueue<Task> pq = new PriorityQueue<>((a, b) -> topoPriority[a.getID()] - topoPriority[b.getID()]);
-		Set<Task> complete = new HashSet<>();
-
-		// add all parent-free nodes to the PQ
-		pq.addAll(tasks.stream()
-				.filter(t -> t.getDependencies().isEmpty())
-				.collect(Collectors.toSet()));
-
-		while (complete.size() != tasks.size()) {
-			// remove an element from the PQ and put this as the next element in our ordering
-			Task next = pq.poll();
-			topoIdx[next.getID()] = complete.size();
-			complete.add(next);
-			
-			// examine all of next's children to see if they are now parent free.
-			// put the ones that are now parent free into the PQ.
-			next.getDependents().keySet().stream()
-			.filter(t -> complete.containsAll(t.getDependencies().keySet()))
-			.forEach(t -> pq.add(t));
-		}
+
+		TaskGraph graph = TaskGraph.of(tasks);
+		int[] order = TopologicalOrders.of(graph).byPriority(i -> topoPriority[graph.getTask(i).getID()]);
+		for (int pos = 0; pos < order.length; pos++)
+			topoIdx[graph.getTask(order[pos]).getID()] = pos;
 
 		// now, partition the tasks by inserting a partition whenever the 
 		// next task has a lower topological sort value than the current task
@@ -371,8 +346,7 @@ public class PermutationSolver {
 			toR.peekLast().add(t.getB());	
 		}
 
-		List<TaskQueue> tqs = new ArrayList<>(toR);
-		return Actualizer.invokeWithTopo(tqs, topoIdx);
+		return new ArrayList<>(toR);
 	}
 
 
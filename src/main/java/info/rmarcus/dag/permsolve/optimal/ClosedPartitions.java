@@ -0,0 +1,86 @@
+package info.rmarcus.dag.permsolve.optimal;
+
+import java.util.List;
+
+import sirens.models.Task;
+import sirens.models.TaskGraph;
+import sirens.models.states.MachineType;
+
+/**
+ * What every schedule under a node is known to have in common: the
+ * partitions left of the rightmost separator are closed, and any edge the
+ * separators cut stays cut. From that, each task has a least duration, its
+ * latency plus the networking time of its cut outgoing edges.
+ *
+ * The scratch arrays are per thread, so one instance can serve a parallel search.
+ */
+class ClosedPartitions {
+	private final TaskGraph graph;
+
+	// where each task (by graph index) sits in the permuted task list
+	private final int[] positionOf;
+
+	private final ThreadLocal<Scratch> scratch;
+
+	ClosedPartitions(List<Task> tasks) {
+		graph = TaskGraph.of(tasks);
+		positionOf = new int[graph.size()];
+		for (int i = 0; i < tasks.size(); i++)
+			positionOf[graph.indexOf(tasks.get(i))] = i;
+
+		scratch = ThreadLocal.withInitial(() -> new Scratch(graph.size()));
+	}
+
+	TaskGraph getGraph() {
+		return graph;
+	}
+
+	int positionOf(int idx) {
+		return positionOf[idx];
+	}
+
+	/**
+	 * Fills in partitionAt and duration for the given node, and returns them.
+	 * The open region right of the last separator counts as one partition.
+	 */
+	Scratch load(StarsAndBarsNode sbn) {
+		Scratch s = scratch.get();
+		if (s.loadedFor == sbn)
+			return s;
+
+		int part = 0;
+		for (int p = 0; p < sbn.getNumItems(); p++) {
+			s.partitionAt[p] = part;
+			if (part < sbn.getNumSeparators() && sbn.getSeparator(part + 1) == p)
+				part++;
+		}
+
+		for (int t = 0; t < graph.size(); t++) {
+			int myPart = s.partitionAt[positionOf[t]];
+			int d = graph.getLatency(t, MachineType.SMALL);
+			for (int k = graph.childrenStart(t); k < graph.childrenEnd(t); k++) {
+				if (s.partitionAt[positionOf[graph.childAt(k)]] != myPart)
+					d += graph.childWeightAt(k);
+			}
+			s.duration[t] = d;
+		}
+
+		s.loadedFor = sbn;
+		return s;
+	}
+
+	static class Scratch {
+		final int[] partitionAt;
+		final int[] duration;
+		final int[] scratch;
+
+		// bounds sharing this instance only pay for the durations once per node
+		private StarsAndBarsNode loadedFor;
+
+		private Scratch(int n) {
+			partitionAt = new int[n];
+			duration = new int[n];
+			scratch = new int[n + 1];
+		}
+	}
+}
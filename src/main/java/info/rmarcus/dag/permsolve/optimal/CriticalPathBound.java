@@ -0,0 +1,76 @@
+package info.rmarcus.dag.permsolve.optimal;
+
+import java.util.List;
+
+import sirens.dag.DAGException;
+import sirens.models.Task;
+import sirens.models.TaskGraph;
+
+/**
+ * The longest path through the graph, weighting each task by its least
+ * duration (latency plus cut networking), plus the 60 every schedule pays.
+ * The reverse topological order is worked out once; the bottom levels along
+ * it are redone per node, since every new separator can lengthen tasks.
+ */
+public class CriticalPathBound implements LowerBound {
+	private final ClosedPartitions closed;
+	private final int[] reverseTopo;
+
+	public CriticalPathBound(List<Task> tasks) {
+		this(new ClosedPartitions(tasks));
+	}
+
+	CriticalPathBound(ClosedPartitions closed) {
+		this.closed = closed;
+
+		TaskGraph graph = closed.getGraph();
+		int n = graph.size();
+		int[] remaining = new int[n];
+		int[] order = new int[n];
+		int head = 0;
+		int tail = 0;
+		for (int t = 0; t < n; t++) {
+			remaining[t] = graph.outDegree(t);
+			if (remaining[t] == 0)
+				order[tail++] = t;
+		}
+
+		while (head < tail) {
+			int t = order[head++];
+			for (int k = graph.parentsStart(t); k < graph.parentsEnd(t); k++) {
+				int parent = graph.parentAt(k);
+				if (--remaining[parent] == 0)
+					order[tail++] = parent;
+			}
+		}
+
+		if (tail != n)
+			throw new DAGException("Task graph has a cycle!");
+
+		reverseTopo = order;
+	}
+
+	@Override
+	public int compute(ScheduleNode node) {
+		ClosedPartitions.Scratch s = closed.load(node.getStarsAndBars());
+		TaskGraph graph = closed.getGraph();
+		int[] bottomLevel = s.scratch;
+
+		int longest = 0;
+		for (int t : reverseTopo) {
+			int below = 0;
+			for (int k = graph.childrenStart(t); k < graph.childrenEnd(t); k++)
+				below = Math.max(below, bottomLevel[graph.childAt(k)]);
+
+			bottomLevel[t] = s.duration[t] + below;
+			longest = Math.max(longest, bottomLevel[t]);
+		}
+
+		return longest + 60;
+	}
+
+	@Override
+	public String getName() {
+		return "critical path";
+	}
+}
@@ -0,0 +1,21 @@
+package info.rmarcus.dag.permsolve.optimal;
+
+/**
+ * The summed weight of the edges the node's separators have already cut.
+ * Separators are only ever added, so a cut edge stays cut in every child.
+ *
+ * This is the bound the solver started out with. It is not a true bound on
+ * latency: networking on different machines overlaps, so a schedule can
+ * cut more weight than its latency, and pruning with it can miss the optimum.
+ */
+public class CutBound implements LowerBound {
+	@Override
+	public int compute(ScheduleNode node) {
+		return node.getCutCost();
+	}
+
+	@Override
+	public String getName() {
+		return "cut";
+	}
+}
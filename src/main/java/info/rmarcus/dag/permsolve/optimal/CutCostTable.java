@@ -0,0 +1,63 @@
+package info.rmarcus.dag.permsolve.optimal;
+
+/**
+ * 2D prefix sums over a pairwise cost matrix, so that the total cost between
+ * two contiguous ranges of items is an O(1) rectangle query.
+ */
+public class CutCostTable {
+	// prefix[i][j] is the sum of costs[a][b] for a < i and b < j
+	private final int[][] prefix;
+
+	public CutCostTable(int[][] costs) {
+		int n = costs.length;
+		prefix = new int[n + 1][n + 1];
+
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				prefix[i + 1][j + 1] = costs[i][j] + prefix[i][j + 1] + prefix[i + 1][j] - prefix[i][j];
+			}
+		}
+	}
+
+	public int size() {
+		return prefix.length - 1;
+	}
+
+	/**
+	 * The sum of costs[a][b] for every a in [fromA, toA] and b in [fromB, toB], inclusive.
+	 */
+	public int rangeCost(int fromA, int toA, int fromB, int toB) {
+		if (fromA > toA || fromB > toB)
+			return 0;
+
+		return prefix[toA + 1][toB + 1] - prefix[fromA][toB + 1] - prefix[toA + 1][fromB] + prefix[fromA][fromB];
+	}
+
+	/**
+	 * The cost of the pairs the node's rightmost bar cut apart: every item
+	 * between the previous bar and the rightmost bar against every item after it.
+	 */
+	public int addedByLastSeparator(StarsAndBarsNode sbn) {
+		int count = sbn.getNumSeparators();
+		if (count == 0)
+			return 0;
+
+		int midpoint = sbn.getSeparator(count);
+		int leftmost = sbn.getSeparator(count - 1);
+		return rangeCost(leftmost + 1, midpoint, midpoint + 1, size() - 1);
+	}
+
+	/**
+	 * The cost of every pair of items the node's bars put in different partitions.
+	 */
+	public int cutCost(StarsAndBarsNode sbn) {
+		int total = 0;
+		for (int s = 1; s <= sbn.getNumSeparators(); s++) {
+			int midpoint = sbn.getSeparator(s);
+			int leftmost = sbn.getSeparator(s - 1);
+			total += rangeCost(leftmost + 1, midpoint, midpoint + 1, size() - 1);
+		}
+
+		return total;
+	}
+}
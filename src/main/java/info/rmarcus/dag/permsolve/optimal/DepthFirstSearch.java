@@ -0,0 +1,171 @@
+package info.rmarcus.dag.permsolve.optimal;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+
+import info.rmarcus.dag.anytime.SearchBudget;
+
+/**
+ * Depth first branch and bound over the stars and bars tree. Only the
+ * current path and the unexplored siblings along it are kept, and children
+ * are built without being cached, so a finished subtree can be collected
+ * straight away. Children are visited cheapest first, so the search dives
+ * to good schedules early and tightens the flyweight's bound for the rest.
+ */
+public class DepthFirstSearch {
+	private static final Comparator<ScheduleNode> CHEAPEST_FIRST =
+			Comparator.comparingInt(ScheduleNode::getCost).thenComparingInt(ScheduleNode::getLowerBound);
+
+	private final int maxDepth;
+	private final SearchBudget budget;
+	private final Deque<Frame> path = new ArrayDeque<>();
+	private boolean cutOff;
+	private int cutOffBound;
+	private boolean truncated;
+
+	public DepthFirstSearch() {
+		this(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param maxDepth the most separators a schedule may add to the root's
+	 */
+	public DepthFirstSearch(int maxDepth) {
+		this(maxDepth, SearchBudget.unlimited());
+	}
+
+	/**
+	 * @param maxDepth the most separators a schedule may add to the root's
+	 * @param budget when to give up, leaving the best schedule found so far in the flyweight
+	 */
+	public DepthFirstSearch(int maxDepth, SearchBudget budget) {
+		this.maxDepth = maxDepth;
+		this.budget = budget;
+	}
+
+	/**
+	 * Searches the tree under root, down to this search's depth limit.
+	 * @return true if the whole tree was searched, false if some subtree was
+	 * cut off by the depth limit or the budget ran out
+	 */
+	public boolean search(ScheduleNode root) {
+		cutOff = false;
+		cutOffBound = Integer.MAX_VALUE;
+		truncated = false;
+		path.clear();
+
+		PruningFlyweight pf = root.getFlyweight();
+		int reported = Integer.MAX_VALUE;
+		push(root, 0);
+
+		while (!path.isEmpty()) {
+			if (budget.isExhausted()) {
+				truncated = true;
+				return false;
+			}
+
+			Frame top = path.peek();
+			if (top.next == top.children.length) {
+				path.pop();
+				continue;
+			}
+
+			ScheduleNode child = top.children[top.next];
+			top.children[top.next++] = null; // let the subtree go once it is done
+
+			// the bound may have improved since this child was built
+			if (child.isPruned())
+				continue;
+
+			push(child, top.depth + 1);
+
+			int best = pf.getBestObservedCost();
+			if (best < reported) {
+				reported = best;
+				budget.report(best, Math.min(best, getFrontierBound()));
+			}
+		}
+
+		return !cutOff;
+	}
+
+	/**
+	 * Whether the last search stopped because its budget ran out.
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * The lowest lower bound among the nodes the last search left unexplored
+	 * (or cut off), or Integer.MAX_VALUE if it left none.
+	 */
+	public int getFrontierBound() {
+		int toR = cutOffBound;
+		for (Frame f : path) {
+			for (int i = f.next; i < f.children.length; i++)
+				toR = Math.min(toR, f.children[i].getLowerBound());
+		}
+
+		return toR;
+	}
+
+	/**
+	 * Searches the tree under root with a depth limit of 1, 2, ... separators,
+	 * until a search finishes without cutting anything off. Schedules with few
+	 * queues are found (and bound the rest of the search) first.
+	 */
+	public static void iterativeDeepening(ScheduleNode root) {
+		iterativeDeepening(root, SearchBudget.unlimited());
+	}
+
+	/**
+	 * Like {@link #iterativeDeepening(ScheduleNode)}, but stops when the budget runs out.
+	 * @return false if the budget ran out before the tree was searched
+	 */
+	public static boolean iterativeDeepening(ScheduleNode root, SearchBudget budget) {
+		int depth = 1;
+		while (true) {
+			DepthFirstSearch dfs = new DepthFirstSearch(depth, budget);
+			if (dfs.search(root))
+				return true;
+
+			if (dfs.isTruncated())
+				return false;
+
+			depth++;
+		}
+	}
+
+	private void push(ScheduleNode node, int depth) {
+		int numChildren = node.getNumChildren();
+		if (numChildren == 0)
+			return;
+
+		if (depth >= maxDepth) {
+			cutOff = true;
+			cutOffBound = Math.min(cutOffBound, node.getLowerBound());
+			return;
+		}
+
+		ScheduleNode[] children = new ScheduleNode[numChildren];
+		for (int i = 0; i < numChildren; i++)
+			children[i] = node.createChild(i);
+
+		Arrays.sort(children, CHEAPEST_FIRST);
+		path.push(new Frame(children, depth));
+	}
+
+	private static class Frame {
+		private final ScheduleNode[] children;
+		private final int depth;
+		private int next;
+
+		private Frame(ScheduleNode[] children, int depth) {
+			this.children = children;
+			this.depth = depth;
+		}
+	}
+}
@@ -10,6 +10,10 @@ public class InOrderScheduleNode extends ScheduleNode {
 		super(t, pf, costs);
 	}
 
+	public InOrderScheduleNode(List<Task> t, PruningFlyweight pf, int[][] costs, LowerBounds bounds) {
+		super(t, pf, costs, bounds);
+	}
+
 	public InOrderScheduleNode(ScheduleNode p, StarsAndBarsNode sbn, PruningFlyweight fw) {
 		super(p, sbn, fw);
 	}
@@ -0,0 +1,13 @@
+package info.rmarcus.dag.permsolve.optimal;
+
+/**
+ * A lower bound on the latency of every schedule in the subtree under a
+ * {@link ScheduleNode}, i.e. every way of adding more separators to the
+ * right of the node's rightmost one. Bounds are shared by every node of a
+ * search, possibly on several threads at once.
+ */
+public interface LowerBound {
+	int compute(ScheduleNode node);
+
+	String getName();
+}
@@ -0,0 +1,80 @@
+package info.rmarcus.dag.permsolve.optimal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import sirens.models.Task;
+
+/**
+ * The lower bounds a search prunes with, combined by taking the largest.
+ * Each pruned node is credited to the bound that gave the largest value.
+ */
+public class LowerBounds {
+	private final List<LowerBound> bounds;
+	private final LongAdder[] pruned;
+
+	public LowerBounds(List<LowerBound> bounds) {
+		this.bounds = new ArrayList<>(bounds);
+		this.pruned = new LongAdder[bounds.size()];
+		for (int i = 0; i < pruned.length; i++)
+			pruned[i] = new LongAdder();
+	}
+
+	/**
+	 * Only the summed weight of cut edges, as the solver originally pruned.
+	 */
+	public static LowerBounds cutOnly() {
+		return new LowerBounds(Arrays.asList(new CutBound()));
+	}
+
+	/**
+	 * The critical path and serial work bounds. Both hold for every schedule
+	 * under a node, so a search pruning with them stays exact.
+	 */
+	public static LowerBounds standard(List<Task> tasks) {
+		ClosedPartitions closed = new ClosedPartitions(tasks);
+		return new LowerBounds(Arrays.asList(
+				new CriticalPathBound(closed),
+				new SerialWorkBound(closed)));
+	}
+
+	/**
+	 * The standard bounds plus the cut bound, which prunes far more but can
+	 * prune away the optimal schedule.
+	 * @see CutBound
+	 */
+	public static LowerBounds withCut(List<Task> tasks) {
+		ClosedPartitions closed = new ClosedPartitions(tasks);
+		return new LowerBounds(Arrays.asList(
+				new CutBound(),
+				new CriticalPathBound(closed),
+				new SerialWorkBound(closed)));
+	}
+
+	public int size() {
+		return bounds.size();
+	}
+
+	public LowerBound get(int i) {
+		return bounds.get(i);
+	}
+
+	public void recordPrune(int i) {
+		pruned[i].increment();
+	}
+
+	public long getPruned(int i) {
+		return pruned[i].sum();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("pruned by");
+		for (int i = 0; i < bounds.size(); i++)
+			sb.append(i == 0 ? " " : ", ").append(bounds.get(i).getName()).append(": ").append(getPruned(i));
+
+		return sb.toString();
+	}
+}
@@ -0,0 +1,103 @@
+package info.rmarcus.dag.permsolve.optimal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import info.rmarcus.dag.anytime.SearchBudget;
+
+/**
+ * Branch and bound over the stars and bars tree on a fork/join pool. Every
+ * subtree is a task, so idle workers steal whole subtrees from busy ones,
+ * and every task prunes against the flyweight's incumbent, which any worker
+ * may have just improved.
+ */
+public class ParallelSearch {
+	private final ForkJoinPool pool;
+	private final SearchBudget budget;
+
+	private volatile boolean truncated;
+	private final AtomicInteger reported = new AtomicInteger(Integer.MAX_VALUE);
+	private int rootBound;
+
+	public ParallelSearch(ForkJoinPool pool) {
+		this(pool, SearchBudget.unlimited());
+	}
+
+	/**
+	 * @param budget when to give up; every task checks it before doing any
+	 * work, so the workers stop soon after it runs out
+	 */
+	public ParallelSearch(ForkJoinPool pool, SearchBudget budget) {
+		this.pool = pool;
+		this.budget = budget;
+	}
+
+	/**
+	 * Searches the whole tree under root. The best schedule found ends up in
+	 * the flyweight root was built with.
+	 * @return false if the budget ran out before the tree was searched
+	 */
+	public boolean search(ScheduleNode root) {
+		truncated = false;
+		rootBound = root.getLowerBound();
+		pool.invoke(new Subtree(root, null, 0));
+		return !truncated;
+	}
+
+	private void reportProgress(PruningFlyweight pf) {
+		int best = pf.getBestObservedCost();
+		int last = reported.get();
+		while (best < last) {
+			if (reported.compareAndSet(last, best)) {
+				budget.report(best, Math.min(best, rootBound));
+				return;
+			}
+
+			last = reported.get();
+		}
+	}
+
+	private class Subtree extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final @Nullable ScheduleNode node;
+		private final @Nullable ScheduleNode parent;
+		private final int index;
+
+		private Subtree(@Nullable ScheduleNode node, @Nullable ScheduleNode parent, int index) {
+			this.node = node;
+			this.parent = parent;
+			this.index = index;
+		}
+
+		@Override
+		protected void compute() {
+			if (budget.isExhausted()) {
+				truncated = true;
+				return;
+			}
+
+			// children are built (and so scored) by the worker that runs them, not by their parent
+			final ScheduleNode root = node;
+			ScheduleNode me = (root != null ? root : parent.createChild(index));
+			reportProgress(me.getFlyweight());
+
+			// the incumbent may have improved since this task was forked;
+			// a pruned node reports no children
+			int numChildren = me.getNumChildren();
+			if (numChildren == 0)
+				return;
+
+			List<Subtree> children = new ArrayList<>(numChildren);
+			for (int i = 0; i < numChildren; i++)
+				children.add(new Subtree(null, me, i));
+
+			invokeAll(children);
+		}
+	}
+}
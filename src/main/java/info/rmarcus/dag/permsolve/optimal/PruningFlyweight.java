@@ -1,36 +1,131 @@
 package info.rmarcus.dag.permsolve.optimal;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
 import org.eclipse.jdt.annotation.Nullable;
 
+import sirens.dag.Actualizer;
+import sirens.dag.CostAnalyzer;
+import sirens.models.TaskQueue;
+
 import info.rmarcus.NullUtils;
 import info.rmarcus.dag.permsolve.PermSolveException;
 
+/**
+ * Holds the best schedule seen so far. The cost and the node are swapped in
+ * together with a compare-and-set, so searches on several threads can share
+ * one flyweight and prune against each other's best.
+ *
+ * A flyweight can be seeded with a schedule found some other way (e.g. by a
+ * heuristic) before the search starts, so the search prunes against it from
+ * the first node on.
+ */
 public class PruningFlyweight {
-	private int bestObservedCost = Integer.MAX_VALUE;
-	private @Nullable ScheduleNode bestPartitions = null;
-	
+	private final AtomicReference<Incumbent> best = new AtomicReference<>(new Incumbent(Integer.MAX_VALUE, null, null));
+	private final LongAdder prunedBySeed = new LongAdder();
+	private final LongAdder pruned = new LongAdder();
+
 	public int getBestObservedCost() {
-		return bestObservedCost;
+		return best.get().cost;
 	}
-	
+
 	public void setBestObservedCost(int n) {
-		this.bestObservedCost = n;
+		Incumbent current = best.get();
+		best.set(new Incumbent(n, current.node, current.seed));
 	}
-	
+
 	public boolean isAboveBestObserved(int n) {
-		return n > bestObservedCost;
+		return n > best.get().cost;
 	}
-	
+
 	public void recordNewObserved(int n, ScheduleNode sn) {
-		if (n < bestObservedCost) {
-			this.bestObservedCost = n;
-			this.bestPartitions = sn;
-		}		
+		Incumbent current = best.get();
+		Incumbent proposed = new Incumbent(n, sn, null);
+		while (n < current.cost) {
+			if (best.compareAndSet(current, proposed))
+				return;
+
+			current = best.get();
+		}
+	}
+
+	/**
+	 * Installs the given schedule as the incumbent, if its latency is lower than the current one's.
+	 */
+	public void seed(List<TaskQueue> schedule) {
+		seed(CostAnalyzer.latencyOf(schedule), schedule);
+	}
+
+	/**
+	 * Installs the given schedule as the incumbent, if it is cheaper than the current one.
+	 * @param cost the schedule's latency
+	 * @param schedule any schedule over the tasks being searched, not necessarily one the search could reach
+	 */
+	public void seed(int cost, List<TaskQueue> schedule) {
+		Incumbent current = best.get();
+		Incumbent proposed = new Incumbent(cost, null, schedule);
+		while (cost < current.cost) {
+			if (best.compareAndSet(current, proposed))
+				return;
+
+			current = best.get();
+		}
+	}
+
+	/**
+	 * Whether the incumbent is still a seed, i.e. the search has not beaten it yet.
+	 */
+	public boolean isSeedIncumbent() {
+		return best.get().seed != null;
 	}
-	
+
+	/**
+	 * Counts a node the search pruned, noting whether the seed was what pruned it.
+	 */
+	public void recordPrune() {
+		pruned.increment();
+		if (isSeedIncumbent())
+			prunedBySeed.increment();
+	}
+
+	public long getPruned() {
+		return pruned.sum();
+	}
+
+	public long getPrunedBySeed() {
+		return prunedBySeed.sum();
+	}
+
 	public ScheduleNode getBestPartitions() {
-		final ScheduleNode toR = bestPartitions;
-		return NullUtils.orThrow(toR, 
+		final ScheduleNode toR = best.get().node;
+		return NullUtils.orThrow(toR,
 				() -> new PermSolveException("No best schedule yet!"));
 	}
+
+	/**
+	 * The best schedule, built: either the best node's, or the seed's if the
+	 * search never beat it.
+	 */
+	public List<TaskQueue> getBestSchedule() {
+		Incumbent current = best.get();
+		final List<TaskQueue> seed = current.seed;
+		if (seed != null)
+			return Actualizer.actualize(seed);
+
+		return getBestPartitions().getSchedule();
+	}
+
+	private static class Incumbent {
+		private final int cost;
+		private final @Nullable ScheduleNode node;
+		private final @Nullable List<TaskQueue> seed;
+
+		private Incumbent(int cost, @Nullable ScheduleNode node, @Nullable List<TaskQueue> seed) {
+			this.cost = cost;
+			this.node = node;
+			this.seed = seed;
+		}
+	}
 }
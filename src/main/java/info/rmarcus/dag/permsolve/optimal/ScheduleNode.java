@@ -5,12 +5,11 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
-import org.eclipse.jdt.annotation.Nullable;
-
 import sirens.dag.Actualizer;
-import sirens.dag.CostAnalyzer;
 import sirens.dag.DAGException;
+import sirens.dag.EvaluationCache;
 import sirens.models.Task;
+import sirens.models.TaskGraph;
 import sirens.models.TaskQueue;
 import sirens.models.states.MachineType;
 
@@ -22,56 +21,67 @@ public class ScheduleNode {
 	protected final StarsAndBarsNode sbn;
 	private final Map<Integer, ScheduleNode> children;
 
+	private int cutCost;
 	private int lowerBound;
+	private int strongestBound;
+	private boolean prunedRecorded;
 	private int myCost;
-	private final @Nullable Integer parentLB;
 
 	private PruningFlyweight prune;
-	private int[][] costs;
+	private final CutCostTable cuts;
+	private final LowerBounds bounds;
+	private final TaskGraph graph;
 
 	public ScheduleNode(List<Task> t, PruningFlyweight pf, int[][] costs) {
+		this(t, pf, costs, LowerBounds.standard(t));
+	}
+
+	public ScheduleNode(List<Task> t, PruningFlyweight pf, int[][] costs, LowerBounds bounds) {
 		this.tasks = t;
 		sbn = new StarsAndBarsNode(t.size());
 		children = new HashMap<>();
-		lowerBound = 0;
 		prune = pf;
-		parentLB = null;
-		this.costs = costs;
+		cuts = new CutCostTable(costs);
+		this.bounds = bounds;
+		graph = TaskGraph.of(t);
+
+		// the sum of the edges that have currently been broken
+		cutCost = cuts.cutCost(sbn);
+		calculateLowerBound();
 		calculateMyCost();
 	}
 
 	protected ScheduleNode(ScheduleNode parent, StarsAndBarsNode sbn, PruningFlyweight pf) {
 		this.tasks = parent.tasks;
-		this.parentLB = parent.lowerBound;
-		this.costs = parent.costs;
+		this.cuts = parent.cuts;
+		this.bounds = parent.bounds;
+		this.graph = parent.graph;
 		this.sbn = sbn;
 		children = new HashMap<>();
 		this.prune = pf;
+
+		// the parent's cut, plus the edges my rightmost separator broke
+		cutCost = parent.cutCost + cuts.addedByLastSeparator(sbn);
 		calculateLowerBound();
 		calculateMyCost();
 	}
 
 	private void calculateLowerBound() {
-		if (parentLB == null) {
-			// my lower bound is the sum of the edges that have currently been broken
-			lowerBound = sbn.getAllDisconnectedPairs().stream()
-					.mapToInt(p -> costs[p.a][p.b])
-					.sum();
-			return;
+		lowerBound = Integer.MIN_VALUE;
+		for (int i = 0; i < bounds.size(); i++) {
+			int b = bounds.get(i).compute(this);
+			if (b > lowerBound) {
+				lowerBound = b;
+				strongestBound = i;
+			}
 		}
-		
-		// compute the delta with the parent lower bound
-		lowerBound = sbn.getAdditionalDisconnectedPairsFromRightmostSeperator()
-				.stream()
-				.mapToInt(p -> costs[p.a][p.b])
-				.sum();
-		lowerBound += parentLB;
 	}
 
 	private void calculateMyCost() {
 		//myCost = CostAnalyzer.findCost(getTaskQueues());
 		try {
-			myCost = CostAnalyzer.getLatency(getSchedule());
+			// iterative deepening and repeated solves come back to the same partitions
+			myCost = EvaluationCache.of(graph).getLatency(tasks, sbn::hasSeparatorAfter, MachineType.SMALL);
 		} catch (DAGException e) {
 			//System.out.println("Could not schedule partition: " + sbn.toString());
 			System.err.println(e.getMessage());
@@ -116,12 +126,61 @@ public class ScheduleNode {
 		return toR;
 	}
 	
+	/**
+	 * Builds child #n without caching it (in this node or in its stars and
+	 * bars node), so it is safe to call from several threads at once.
+	 */
+	public ScheduleNode createChild(int n) {
+		return getNewChild(this, sbn.createChild(n), prune);
+	}
+	
 	public ScheduleNode getNewChild(ScheduleNode p, StarsAndBarsNode sbn, PruningFlyweight fw) {
 		return new ScheduleNode(this, sbn, fw);
 	}
 
 	public boolean isPruned() {
-		return prune.isAboveBestObserved(lowerBound);
+		if (!prune.isAboveBestObserved(lowerBound))
+			return false;
+
+		// a node is asked more than once, but should only be counted once
+		if (!prunedRecorded) {
+			prunedRecorded = true;
+			bounds.recordPrune(strongestBound);
+			prune.recordPrune();
+		}
+
+		return true;
+	}
+
+	public List<Task> getTasks() {
+		return tasks;
+	}
+
+	public StarsAndBarsNode getStarsAndBars() {
+		return sbn;
+	}
+
+	public PruningFlyweight getFlyweight() {
+		return prune;
+	}
+
+	public LowerBounds getLowerBounds() {
+		return bounds;
+	}
+
+	/**
+	 * The summed weight of the edges this node's separators cut.
+	 */
+	public int getCutCost() {
+		return cutCost;
+	}
+
+	public int getCost() {
+		return myCost;
+	}
+
+	public int getLowerBound() {
+		return lowerBound;
 	}
 
 	private Task intToTask(int i) {
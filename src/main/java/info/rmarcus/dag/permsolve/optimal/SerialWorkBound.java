@@ -0,0 +1,52 @@
+package info.rmarcus.dag.permsolve.optimal;
+
+import java.util.List;
+
+import sirens.models.Task;
+
+/**
+ * Every closed partition runs on one machine, one task after another, so
+ * the schedule lasts at least as long as the summed least durations of any
+ * one of them (plus the 60 every schedule pays).
+ */
+public class SerialWorkBound implements LowerBound {
+	private final ClosedPartitions closed;
+
+	public SerialWorkBound(List<Task> tasks) {
+		this(new ClosedPartitions(tasks));
+	}
+
+	SerialWorkBound(ClosedPartitions closed) {
+		this.closed = closed;
+	}
+
+	@Override
+	public int compute(ScheduleNode node) {
+		StarsAndBarsNode sbn = node.getStarsAndBars();
+		int numClosed = sbn.getNumSeparators();
+		if (numClosed == 0)
+			return 0;
+
+		ClosedPartitions.Scratch s = closed.load(sbn);
+		int[] work = s.scratch;
+		for (int p = 0; p < numClosed; p++)
+			work[p] = 0;
+
+		for (int t = 0; t < s.duration.length; t++) {
+			int part = s.partitionAt[closed.positionOf(t)];
+			if (part < numClosed)
+				work[part] += s.duration[t];
+		}
+
+		int most = 0;
+		for (int p = 0; p < numClosed; p++)
+			most = Math.max(most, work[p]);
+
+		return most + 60;
+	}
+
+	@Override
+	public String getName() {
+		return "serial work";
+	}
+}
@@ -1,12 +1,10 @@
 package info.rmarcus.dag.permsolve.optimal;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.eclipse.jdt.annotation.Nullable;
 
@@ -15,36 +13,50 @@ import info.rmarcus.dag.permsolve.PermSolveException;
 
 public class StarsAndBarsNode {
 	private final int numItems;
-	private final List<Integer> partitionPoints;
+
+	// separators[0] is always -1 (a bar before the first item); a bar at
+	// position i falls between item i and item i+1. Strictly increasing.
+	private final int[] separators;
 	private final Map<Integer, StarsAndBarsNode> children;
 
 	public StarsAndBarsNode(int numItems) {
-		List<Integer> l = new LinkedList<>();
-		l.add(-1);
-		partitionPoints = NullUtils.orThrow(Collections.unmodifiableList(l),
-				() -> new PermSolveException("Collections::unmodifableList returned null!"));
-
+		this.separators = new int[] { -1 };
 		this.numItems = numItems;
 		children = new HashMap<>();
 	}
 
-	private StarsAndBarsNode(List<Integer> previousPoints, int index, int numItems) {
-		List<Integer> l = new LinkedList<>(previousPoints);
-		l.add(index);
-		partitionPoints = NullUtils.orThrow(Collections.unmodifiableList(l),
-				() -> new PermSolveException("Collections::unmodifableList returned null!"));
+	private StarsAndBarsNode(int[] previousSeparators, int index, int numItems) {
+		separators = Arrays.copyOf(previousSeparators, previousSeparators.length + 1);
+		separators[previousSeparators.length] = index;
 
 		this.numItems = numItems;
 		children = new HashMap<>();
 	}
 
 	private int getLastPartitionPoint() {
-		if (partitionPoints.size() == 0)
-			return 0;
+		return separators[separators.length - 1];
+	}
+
+	public int getNumItems() {
+		return numItems;
+	}
 
-		return NullUtils.orThrow(partitionPoints.get(partitionPoints.size()-1), 
-				() -> new PermSolveException("Null entry in partition points!"));
+	/**
+	 * The number of bars placed so far, not counting the one before the first item.
+	 */
+	public int getNumSeparators() {
+		return separators.length - 1;
+	}
+
+	/**
+	 * The position of the nth bar, where bar 0 is the one before the first item.
+	 */
+	public int getSeparator(int n) {
+		return separators[n];
+	}
 
+	public boolean hasSeparatorAfter(int item) {
+		return Arrays.binarySearch(separators, item) >= 0;
 	}
 
 	public int getNumChildren() {
@@ -59,34 +71,42 @@ public class StarsAndBarsNode {
 			return NullUtils.orThrow(children.get(n),
 					() -> new PermSolveException("Children map entry became null after check"));
 
-		// generate the child
-		StarsAndBarsNode toR = new StarsAndBarsNode(partitionPoints,
-				n + getLastPartitionPoint() + 1, 
-				numItems);
-
+		StarsAndBarsNode toR = createChild(n);
 		children.put(n, toR);
 
 		return toR;
 
 	}
 
+	/**
+	 * Generates child #n without caching it, so that several threads can
+	 * generate the children of one node at once.
+	 */
+	public StarsAndBarsNode createChild(int n) {
+		if (n >= getNumChildren())
+			throw new PermSolveException("Permutation node has no child #" + n);
+
+		return new StarsAndBarsNode(separators,
+				n + getLastPartitionPoint() + 1,
+				numItems);
+	}
+
 	public List<List<Integer>> getPartitions() {
-		Set<Integer> partitions = new HashSet<>(partitionPoints);
 		List<List<Integer>> toR = new LinkedList<>();
-		toR.add(new LinkedList<>());
 
-		// collect everything in the current partition
-		for (int i = 0; i < numItems; i++) {
-			NullUtils.orThrow(toR.get(toR.size()-1),
-					() -> new PermSolveException("Couldn't get a list from the end to add!"))
-			.add(i);
-			
-			if (partitions.contains(i)) {
-				// there's a split here!
-				toR.add(new LinkedList<>());
-			}
+		for (int p = 0; p < separators.length; p++) {
+			int end = (p + 1 < separators.length ? separators[p + 1] : numItems - 1);
+			List<Integer> partition = new LinkedList<>();
+			for (int i = separators[p] + 1; i <= end; i++)
+				partition.add(i);
+
+			toR.add(partition);
 		}
-		
+
+		// a bar after the last item leaves an empty partition at the end
+		if (getLastPartitionPoint() == numItems - 1)
+			toR.add(new LinkedList<>());
+
 		return toR;
 
 	}
@@ -94,7 +114,7 @@ public class StarsAndBarsNode {
 	public List<Pair> getAllDisconnectedPairs() {
 		List<Pair> toR = new LinkedList<>();
 		List<List<Integer>> partitions = getPartitions();
-		
+
 		for (int i = 0; i < partitions.size(); i++) {
 			for (int j = i+1; j < partitions.size(); j++) {
 				for (Integer item1 : NullUtils.orEmptyList(partitions.get(i))) {
@@ -104,64 +124,62 @@ public class StarsAndBarsNode {
 				}
 			}
 		}
-		
+
 
 		return toR;
 	}
-	
+
 	/**
 	 * Gets all the pairs of disconnected items that were created by the
 	 * addition of the rightmost (highest value) seperator
 	 * @return the disconnected pairs
 	 */
 	public List<Pair> getAdditionalDisconnectedPairsFromRightmostSeperator() {
-		if (partitionPoints.size() <= 2)
+		if (separators.length <= 2)
 			return getAllDisconnectedPairs();
-		
-		int midpoint = NullUtils.orThrow(partitionPoints.get(partitionPoints.size() - 1));
-		int leftmost = NullUtils.orThrow(partitionPoints.get(partitionPoints.size() - 2));
+
+		int midpoint = separators[separators.length - 1];
+		int leftmost = separators[separators.length - 2];
 		int rightmost = numItems;
 		List<Pair> toR = new LinkedList<>();
-		
-		for (int i = leftmost; i <= midpoint; i++) {
+
+		// item leftmost is left of the previous bar, so it was already cut off
+		for (int i = leftmost + 1; i <= midpoint; i++) {
 			for (int j = midpoint+1; j < rightmost; j++) {
 				toR.add(new Pair(i, j));
 			}
 		}
-		
+
 		return toR;
 	}
-	
+
 	/**
 	 * Returns true if all but the last partition are increasing in order of size
 	 * @return if the partition sizes are increasing
 	 */
 	public boolean partitionSizesIncreasing() {
-		if (partitionPoints.size() <= 2)
+		if (separators.length <= 2)
 			return true;
-		
-		int lastSize = partitionPoints.get(1) - partitionPoints.get(0);
-		for (int i = 2; i < partitionPoints.size(); i++) {
-			if (partitionPoints.get(i) - partitionPoints.get(i - 1) < lastSize)
+
+		int lastSize = separators[1] - separators[0];
+		for (int i = 2; i < separators.length; i++) {
+			if (separators[i] - separators[i - 1] < lastSize)
 				return false;
 		}
-		
+
 		return true;
 	}
 
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
-		Set<Integer> s = new HashSet<>(partitionPoints);
 
 		for (int i = 0; i < numItems; i++) {
 			sb.append(i + " ");
-			if (s.contains(i))
+			if (hasSeparatorAfter(i))
 				sb.append("| ");
 		}
 
-		//sb.append(partitionPoints);
-
 		@Nullable String toR = sb.toString();
 		return (toR == null ? "none" : toR);
 	}
@@ -170,12 +188,12 @@ public class StarsAndBarsNode {
 	class Pair {
 		int a;
 		int b;
-		
+
 		private Pair(int a, int b) {
 			this.a = a;
 			this.b = b;
 		}
-		
+
 		@Override
 		public String toString() {
 			return "<" + a + ", " + b + ">";
@@ -0,0 +1,269 @@
+package info.rmarcus.javautil;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * How the solvers spread their work over threads: how many, whether the
+ * pool is shared between calls, and how finely the work is split.
+ *
+ * Every setting can also be given as a system property (see
+ * {@link #fromSystemProperties()}), so a run can use a whole machine, or be
+ * pinned to a couple of cores, without code changes.
+ *
+ * Policies are immutable; the with* methods return modified copies.
+ */
+public class ExecutionPolicy {
+	public enum Granularity {
+		/** split the work in halves, recursively, so idle workers steal from busy ones */
+		WORK_STEALING,
+
+		/** submit every item as its own task */
+		PER_ITEM
+	}
+
+	public static final String THREADS_PROPERTY = "sirens.threads";
+	public static final String REUSE_POOL_PROPERTY = "sirens.reusePool";
+	public static final String GRANULARITY_PROPERTY = "sirens.granularity";
+	public static final String VIRTUAL_THREADS_PROPERTY = "sirens.virtualThreads";
+
+	// shared pools, by parallelism; their workers are daemons, so they never need shutting down
+	private static final Map<Integer, ForkJoinPool> SHARED_POOLS = new ConcurrentHashMap<>();
+
+	// about this many leaves per worker when splitting, so one slow leaf cannot stall the rest
+	private static final int LEAVES_PER_THREAD = 4;
+
+	private final int parallelism;
+	private final boolean reusePool;
+	private final Granularity granularity;
+	private final boolean virtualThreads;
+
+	private ExecutionPolicy(int parallelism, boolean reusePool, Granularity granularity, boolean virtualThreads) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Parallelism must be at least 1, not " + parallelism);
+
+		this.parallelism = parallelism;
+		this.reusePool = reusePool;
+		this.granularity = granularity;
+		this.virtualThreads = virtualThreads;
+	}
+
+	/**
+	 * One thread per core, on a shared work-stealing pool.
+	 */
+	public static ExecutionPolicy defaults() {
+		return new ExecutionPolicy(Runtime.getRuntime().availableProcessors(), true, Granularity.WORK_STEALING, false);
+	}
+
+	/**
+	 * Runs everything on the calling thread.
+	 */
+	public static ExecutionPolicy sequential() {
+		return defaults().withParallelism(1);
+	}
+
+	/**
+	 * The defaults, overridden by any of the sirens.threads, sirens.reusePool,
+	 * sirens.granularity (work_stealing or per_item) and sirens.virtualThreads
+	 * system properties that are set.
+	 */
+	public static ExecutionPolicy fromSystemProperties() {
+		ExecutionPolicy toR = defaults();
+
+		String threads = System.getProperty(THREADS_PROPERTY);
+		if (threads != null)
+			toR = toR.withParallelism(Integer.parseInt(threads.trim()));
+
+		String reuse = System.getProperty(REUSE_POOL_PROPERTY);
+		if (reuse != null)
+			toR = toR.withPoolReuse(Boolean.parseBoolean(reuse.trim()));
+
+		String granularity = System.getProperty(GRANULARITY_PROPERTY);
+		if (granularity != null)
+			toR = toR.withGranularity(Granularity.valueOf(granularity.trim().toUpperCase()));
+
+		String virtual = System.getProperty(VIRTUAL_THREADS_PROPERTY);
+		if (virtual != null)
+			toR = toR.withVirtualThreads(Boolean.parseBoolean(virtual.trim()));
+
+		return toR;
+	}
+
+	public ExecutionPolicy withParallelism(int n) {
+		return new ExecutionPolicy(n, reusePool, granularity, virtualThreads);
+	}
+
+	public ExecutionPolicy withPoolReuse(boolean reuse) {
+		return new ExecutionPolicy(parallelism, reuse, granularity, virtualThreads);
+	}
+
+	public ExecutionPolicy withGranularity(Granularity g) {
+		return new ExecutionPolicy(parallelism, reusePool, g, virtualThreads);
+	}
+
+	/**
+	 * Whether {@link #map(List, Function)} runs each item on its own virtual
+	 * thread, for work that blocks. Ignored on JVMs without virtual threads.
+	 */
+	public ExecutionPolicy withVirtualThreads(boolean virtual) {
+		return new ExecutionPolicy(parallelism, reusePool, granularity, virtual);
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public boolean isPoolReused() {
+		return reusePool;
+	}
+
+	public Granularity getGranularity() {
+		return granularity;
+	}
+
+	public boolean usesVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public boolean isSequential() {
+		return parallelism == 1;
+	}
+
+	/**
+	 * Runs body with a fork/join pool of this policy's parallelism: the shared
+	 * one if pools are reused, otherwise a new one that is shut down afterwards.
+	 */
+	public <R> R withPool(Function<ForkJoinPool, R> body) {
+		if (reusePool)
+			return body.apply(SHARED_POOLS.computeIfAbsent(parallelism, ForkJoinPool::new));
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			return body.apply(pool);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Applies f to every item, in parallel as this policy says.
+	 * @return the results, in the order of the items
+	 */
+	public <T, R> List<R> map(List<T> items, Function<? super T, ? extends R> f) {
+		if (isSequential() || items.size() <= 1) {
+			List<R> toR = new ArrayList<>(items.size());
+			for (T item : items)
+				toR.add(f.apply(item));
+
+			return toR;
+		}
+
+		if (virtualThreads) {
+			ExecutorService virtual = newVirtualThreadExecutor();
+			if (virtual != null) {
+				try {
+					return submitEach(virtual, items, f);
+				} finally {
+					virtual.shutdown();
+				}
+			}
+		}
+
+		if (granularity == Granularity.PER_ITEM)
+			return withPool(pool -> submitEach(pool, items, f));
+
+		List<T> indexed = (items instanceof RandomAccess ? items : new ArrayList<>(items));
+
+		@SuppressWarnings("unchecked")
+		R[] results = (R[]) new Object[indexed.size()];
+		int leafSize = Math.max(1, indexed.size() / (parallelism * LEAVES_PER_THREAD));
+		withPool(pool -> pool.invoke(new MapRange<>(indexed, f, results, 0, indexed.size(), leafSize)));
+
+		return Arrays.asList(results);
+	}
+
+	private static <T, R> List<R> submitEach(ExecutorService exec, List<T> items, Function<? super T, ? extends R> f) {
+		List<Future<? extends R>> futures = new ArrayList<>(items.size());
+		for (T item : items)
+			futures.add(exec.submit(() -> f.apply(item)));
+
+		List<R> toR = new ArrayList<>(items.size());
+		for (Future<? extends R> future : futures)
+			toR.add(join(future));
+
+		return toR;
+	}
+
+	private static <R> R join(Future<R> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+
+			throw new RuntimeException(cause);
+		}
+	}
+
+	// Executors.newVirtualThreadPerTaskExecutor, looked up reflectively since
+	// we build for Java 8; null where the JVM has no virtual threads
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method m = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) m.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static class MapRange<T, R> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final List<T> items;
+		private final Function<? super T, ? extends R> f;
+		private final R[] results;
+		private final int from;
+		private final int to;
+		private final int leafSize;
+
+		private MapRange(List<T> items, Function<? super T, ? extends R> f, R[] results, int from, int to, int leafSize) {
+			this.items = items;
+			this.f = f;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+			this.leafSize = leafSize;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= leafSize) {
+				for (int i = from; i < to; i++)
+					results[i] = f.apply(items.get(i));
+
+				return;
+			}
+
+			int mid = (from + to) >>> 1;
+			invokeAll(new MapRange<>(items, f, results, from, mid, leafSize),
+					new MapRange<>(items, f, results, mid, to, leafSize));
+		}
+	}
+}
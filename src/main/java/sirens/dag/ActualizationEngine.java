@@ -0,0 +1,113 @@
+package sirens.dag;
+
+import java.util.Arrays;
+
+import sirens.models.TaskGraph;
+
+/**
+ * Times a schedule in O(V + E). Every task keeps a count of its parents that
+ * have not been timed yet, and a queue is put on a worklist only when its head
+ * task becomes ready, so each task is timed exactly once.
+ *
+ * An engine only owns scratch space sized to its task graph; the schedule
+ * and its times live in a {@link ScheduleState}. An engine may be reused for
+ * any number of states over that graph, but it is not thread safe.
+ */
+public class ActualizationEngine {
+	private final TaskGraph graph;
+
+	// per task
+	private final int[] remaining;
+	private final int[] readyAt;
+
+	// per queue
+	private int[] head;
+	private int[] queueEnd;
+	private int[] worklist;
+
+	public ActualizationEngine(TaskGraph graph) {
+		this.graph = graph;
+
+		int n = graph.size();
+		remaining = new int[n];
+		readyAt = new int[n];
+
+		head = new int[16];
+		queueEnd = new int[16];
+		worklist = new int[16];
+	}
+
+	public TaskGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Times every task in the given state.
+	 * @param state a freshly loaded schedule over this engine's graph
+	 * @throws DAGException if the queues contain a cycle, or a task depends on a task that is not in any queue
+	 */
+	public void actualize(ScheduleState state) {
+		if (state.getGraph() != graph)
+			throw new DAGException("Schedule state and engine belong to different task graphs!");
+
+		int numQueues = state.getQueueCount();
+		if (head.length < numQueues) {
+			head = Arrays.copyOf(head, numQueues);
+			queueEnd = Arrays.copyOf(queueEnd, numQueues);
+			worklist = Arrays.copyOf(worklist, numQueues);
+		}
+
+		for (int i = 0; i < state.getScheduledCount(); i++) {
+			int t = state.taskAt(i);
+			remaining[t] = graph.inDegree(t);
+			readyAt[t] = 0;
+		}
+
+		// seed the worklist with every queue whose first task has no parents
+		int top = 0;
+		for (int q = 0; q < numQueues; q++) {
+			head[q] = state.queueStart(q);
+			queueEnd[q] = 0;
+
+			if (head[q] < state.queueEnd(q) && remaining[state.taskAt(head[q])] == 0)
+				worklist[top++] = q;
+		}
+
+		while (top != 0) {
+			int q = worklist[--top];
+			int t = state.taskAt(head[q]);
+
+			int myStart = Math.max(queueEnd[q], readyAt[t]);
+
+			// time spent writing our data to dependents on other machines
+			int networkingTime = 0;
+			for (int k = graph.childrenStart(t); k < graph.childrenEnd(t); k++) {
+				if (state.getQueueOf(graph.childAt(k)) != q)
+					networkingTime += graph.childWeightAt(k);
+			}
+
+			int myEnd = myStart + graph.getLatency(t, state.getMachineType(q)) + networkingTime;
+			state.markBuilt(t, myStart, myEnd, myEnd - networkingTime);
+			queueEnd[q] = myEnd;
+
+			// advance this queue; if the next task is already ready, it goes straight back on
+			head[q]++;
+			if (head[q] < state.queueEnd(q) && remaining[state.taskAt(head[q])] == 0)
+				worklist[top++] = q;
+
+			for (int k = graph.childrenStart(t); k < graph.childrenEnd(t); k++) {
+				int child = graph.childAt(k);
+				readyAt[child] = Math.max(readyAt[child], myEnd);
+
+				int cq = state.getQueueOf(child);
+				if (--remaining[child] == 0 && cq != -1 && state.taskAt(head[cq]) == child)
+					worklist[top++] = cq;
+			}
+		}
+
+		if (!state.isFullyBuilt()) {
+			throw new DAGException(
+					"Could not build task! Check input graph for cycles, and make sure all dependencies are in a task queue.");
+		}
+	}
+}
@@ -1,66 +1,48 @@
 package sirens.dag
 
 import java.util
-import java.util.stream.Collectors
-import sirens.models.TaskQueue
+import sirens.models.{Task, TaskGraph, TaskQueue}
 
 import scala.collection.JavaConverters._
 
+// Actualizing builds the tasks in place: every task is pointed at its queue and
+// given its start and end time. Use a ScheduleEvaluator to score a schedule
+// without touching the tasks.
 object Actualizer {
   def actualize(tqs: util.Collection[TaskQueue]): util.List[TaskQueue] = {
-    tqs.forEach(_.unbuildAll())
-    while (tqs.stream.anyMatch(_.hasUnbuiltTask)) {
-      if (tqs.stream.noneMatch(_.buildNextUnbuiltTask)) {
-        throw new DAGException(
-          "Could not build task! Check input graph for cycles, and make sure all dependencies are in a task queue." + tqs)
-      }
-    }
+    val queues = new util.ArrayList[TaskQueue](tqs)
+    queues.forEach(_.unbuildAll())
 
-    // check invariant: all tasks should now be built
-    if (tqs.stream.anyMatch(_.hasUnbuiltTask)) {
-      println(tqs.asScala.toList.map(_.toShortString))
-      throw new DAGException(
-        "Could not build task! Check input graph for cycles, and make sure all dependencies are in a task queue.")
-    }
-    new util.ArrayList[TaskQueue](tqs)
+    val graph = graphOf(queues)
+    val state = new ScheduleState(graph)
+    state.load(queues)
+    new ActualizationEngine(graph).actualize(state)
+    publish(queues, state)
+
+    queues
   }
 
+  // The ready-counter engine finds a valid build order on its own, so the
+  // topological order is no longer needed to drive it.
   def invokeWithTopo(tqs: util.Collection[TaskQueue], topo: Array[Int]): util.List[TaskQueue] = {
-    tqs.forEach(_.unbuildAll())
-
-    val numTasks = tqs.stream.mapToInt((tq: TaskQueue) => tq.getTasks.size).sum
-
-    // build a list of TaskQueues ordered by the topological order of their tasks. i.e. if
-    // a taskqueue has task 1, 3, and 9, it should be in the list at positions 1, 3, and 9.
-    val values = new Array[Int](numTasks)
-    val unorderedTQs = new Array[TaskQueue](numTasks)
-    val orderedTQs = new Array[TaskQueue](numTasks)
-
-    var count = 0
-    for (tq <- tqs.asScala.toList) {
-      for (t <- tq.getTasks.asScala.toList) {
-        values(count) = topo(t.getID)
-        unorderedTQs(count) = tq
-        count += 1
-      }
-    }
+    actualize(tqs)
+  }
 
-    for (i <- 0 until numTasks) {
-      orderedTQs(values(i)) = unorderedTQs(i)
-    }
+  private def graphOf(tqs: util.List[TaskQueue]): TaskGraph = {
+    val tasks = new util.ArrayList[Task]()
+    tqs.forEach(tq => tasks.addAll(tq.getTasks))
+    TaskGraph.of(tasks)
+  }
 
-    // now build the tasks in order
-    for (tq <- orderedTQs) {
-      if (!tq.buildNextUnbuiltTask) {
-        throw new DAGException(
-          "Could not build task! Check input graph for cycles, and make sure all dependencies are in a task queue.")
+  // copy the state's times back into the tasks, for callers that read them from there
+  private def publish(tqs: util.List[TaskQueue], state: ScheduleState): Unit = {
+    val graph = state.getGraph
+    for (tq <- tqs.asScala) {
+      for (t <- tq.getTasks.asScala) {
+        val idx = graph.indexOf(t)
+        t.markBuilt(state.getStart(idx), state.getEnd(idx), state.getNetworkingStart(idx))
       }
+      tq.markAllBuilt()
     }
-    if (tqs.stream.anyMatch(_.hasUnbuiltTask)) {
-      System.out.println(tqs.asScala.toList.map(_.toShortString))
-      throw new DAGException(
-        "Could not build task! Check input graph for cycles, and make sure all dependencies are in a task queue.")
-    }
-    new util.ArrayList[TaskQueue](tqs)
   }
 }
@@ -22,4 +22,16 @@ object CostAnalyzer {
     if (tqs == null) return Integer.MAX_VALUE
     tqs.stream.mapToInt((tq: TaskQueue) => tq.getEndTime + 60).max.getAsInt
   }
+
+  // The two below time the queues on this thread's ScheduleEvaluator instead of
+  // reading built tasks, so they never modify the tasks and are safe to call
+  // from several threads over the same graph.
+  def costOf(tqs: util.List[TaskQueue]): Int = {
+    ScheduleEvaluator.forQueues(tqs).findCost(tqs)
+  }
+
+  def latencyOf(tqs: util.List[TaskQueue]): Int = {
+    if (tqs == null) return Integer.MAX_VALUE
+    ScheduleEvaluator.forQueues(tqs).getLatency(tqs)
+  }
 }
@@ -0,0 +1,191 @@
+package sirens.dag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import sirens.models.TaskGraph;
+import sirens.models.states.MachineType;
+
+/**
+ * Counts the critical (longest) paths of a graph, and the near-critical ones,
+ * by dynamic programming over a topological order instead of enumerating
+ * them, and samples critical paths uniformly.
+ *
+ * A path's loss is how much shorter it is than the critical path. Going from
+ * a task to one of its children loses the gap between the task's b-level and
+ * the longest path through that child, so a path's loss is the sum of the
+ * losses of its steps, plus its source's. Critical paths lose nothing.
+ *
+ * Counts saturate at {@link Long#MAX_VALUE} rather than overflowing; past
+ * that, sampling is only approximately uniform.
+ */
+public final class CriticalPaths {
+	public static final long SATURATED = Long.MAX_VALUE;
+
+	private final GraphLevels levels;
+	private final TaskGraph graph;
+
+	// the critical paths from each task to a sink that follow its b-level
+	private final long[] counts;
+	private final long total;
+
+	public CriticalPaths(GraphLevels levels) {
+		this.levels = levels;
+		this.graph = levels.getGraph();
+
+		int n = graph.size();
+		counts = new long[n];
+		for (int t : TopologicalOrders.of(graph).reverse()) {
+			if (graph.outDegree(t) == 0) {
+				counts[t] = 1;
+				continue;
+			}
+
+			long count = 0;
+			for (int k = graph.childrenStart(t); k < graph.childrenEnd(t); k++) {
+				if (lossOf(t, k) == 0)
+					count = add(count, counts[graph.childAt(k)]);
+			}
+			counts[t] = count;
+		}
+
+		long sum = 0;
+		for (int t = 0; t < n; t++) {
+			if (graph.inDegree(t) == 0 && sourceLoss(t) == 0)
+				sum = add(sum, counts[t]);
+		}
+		total = sum;
+	}
+
+	public static CriticalPaths of(TaskGraph graph, MachineType mt) {
+		return new CriticalPaths(GraphLevels.of(graph, mt));
+	}
+
+	/**
+	 * The number of critical paths, or {@link #SATURATED}.
+	 */
+	public long count() {
+		return total;
+	}
+
+	/**
+	 * The number of critical paths from the given task to a sink that follow
+	 * its b-level, or {@link #SATURATED}.
+	 */
+	public long countFrom(int idx) {
+		return counts[idx];
+	}
+
+	/**
+	 * The number of source-to-sink paths at most slack shorter than the
+	 * critical path, or {@link #SATURATED}. Every task keeps a count for each
+	 * loss up to the slack, so this takes O((V + E) * (slack + 1)).
+	 */
+	public long countNearCritical(int slack) {
+		if (slack < 0)
+			throw new IllegalArgumentException("Slack must not be negative, not " + slack);
+
+		// within[t * width + r]: paths from t to a sink that lose at most r
+		int width = slack + 1;
+		long[] within = new long[graph.size() * width];
+		for (int t : TopologicalOrders.of(graph).reverse()) {
+			int row = t * width;
+			if (graph.outDegree(t) == 0) {
+				Arrays.fill(within, row, row + width, 1);
+				continue;
+			}
+
+			for (int k = graph.childrenStart(t); k < graph.childrenEnd(t); k++) {
+				int loss = lossOf(t, k);
+				int childRow = graph.childAt(k) * width;
+				for (int r = loss; r < width; r++)
+					within[row + r] = add(within[row + r], within[childRow + r - loss]);
+			}
+		}
+
+		long toR = 0;
+		for (int t = 0; t < graph.size(); t++) {
+			int loss = sourceLoss(t);
+			if (graph.inDegree(t) == 0 && loss <= slack)
+				toR = add(toR, within[t * width + slack - loss]);
+		}
+
+		return toR;
+	}
+
+	/**
+	 * Draws k critical paths, each uniformly and independently, as task
+	 * indices from source to sink. Each draw costs O(V + E) at most.
+	 */
+	public List<int[]> sample(int k, Random random) {
+		List<int[]> toR = new ArrayList<>(k);
+		if (total == 0)
+			return toR;
+
+		int[] path = new int[graph.size()];
+		for (int i = 0; i < k; i++) {
+			// pick a source, then each next step, in proportion to the paths through it
+			long pick = nextLong(random, total);
+			int at = -1;
+			for (int t = 0; t < graph.size() && at == -1; t++) {
+				if (graph.inDegree(t) != 0 || sourceLoss(t) != 0)
+					continue;
+
+				if (pick < counts[t])
+					at = t;
+				else
+					pick -= counts[t];
+			}
+
+			int length = 0;
+			while (at != -1) {
+				path[length++] = at;
+
+				int next = -1;
+				for (int e = graph.childrenStart(at); e < graph.childrenEnd(at) && next == -1; e++) {
+					if (lossOf(at, e) != 0)
+						continue;
+
+					if (pick < counts[graph.childAt(e)])
+						next = graph.childAt(e);
+					else
+						pick -= counts[graph.childAt(e)];
+				}
+				at = next;
+			}
+
+			toR.add(Arrays.copyOf(path, length));
+		}
+
+		return toR;
+	}
+
+	// how much shorter than the task's b-level the longest path through its k-th child edge is
+	private int lossOf(int t, int k) {
+		int[] bottom = levels.getBottomLevels();
+		return bottom[t] - graph.getLatency(t, levels.getMachineType()) - graph.childWeightAt(k) - bottom[graph.childAt(k)];
+	}
+
+	private int sourceLoss(int t) {
+		return levels.getCriticalPathLength() - levels.getBottomLevels()[t];
+	}
+
+	private static long add(long a, long b) {
+		long sum = a + b;
+		return (sum < 0 ? SATURATED : sum);
+	}
+
+	// uniform in [0, bound), as Random#nextInt(int) does it for ints
+	private static long nextLong(Random random, long bound) {
+		long bits;
+		long value;
+		do {
+			bits = random.nextLong() >>> 1;
+			value = bits % bound;
+		} while (bits - value + (bound - 1) < 0);
+
+		return value;
+	}
+}
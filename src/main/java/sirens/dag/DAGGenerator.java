@@ -12,6 +12,7 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import sirens.models.Task;
+import sirens.models.TaskGraph;
 import sirens.models.TaskQueue;
 import sirens.models.states.MachineType;
 
@@ -150,7 +151,9 @@ public class DAGGenerator {
 			}
 		}
 
-		return new ArrayList<>(tasks.values());
+		List<Task> toR = new ArrayList<>(tasks.values());
+		TaskGraph.of(toR);
+		return toR;
 	}
 
 	public static Map<String, Integer> getVertexWeightMap(Collection<Vertex> vertices) {
@@ -214,6 +217,7 @@ public class DAGGenerator {
 				.map(t -> toR.get(t.getID()))
 				.collect(Collectors.toList());
 
+		TaskGraph.of(NullUtils.orThrow(l));
 		return NullUtils.orThrow(l);
 	}
 }
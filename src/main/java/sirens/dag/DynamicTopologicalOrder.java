@@ -0,0 +1,275 @@
+package sirens.dag;
+
+import java.util.Arrays;
+
+/**
+ * A topological order over a growing DAG of int vertices, kept up to date as
+ * edges are added (Pearce and Kelly, "A Dynamic Topological Sort Algorithm
+ * for Directed Acyclic Graphs"). Adding an edge that already agrees with the
+ * order is O(1). Otherwise only the vertices whose positions lie between the
+ * edge's endpoints are searched and reordered, and an edge that would close
+ * a cycle is detected on the way and rejected.
+ *
+ * Adjacency is sparse, so memory is O(V + E).
+ */
+public class DynamicTopologicalOrder {
+	private final int n;
+
+	private int[][] out;
+	private int[] outSize;
+	private int[][] in;
+	private int[] inSize;
+
+	// position of each vertex, and the vertex at each position
+	private final int[] ord;
+	private final int[] vertexAt;
+
+	// scratch for the searches; visited[v] == epoch marks v as seen in this search
+	private final int[] visited;
+	private int epoch;
+	private final int[] stack;
+	private int[] forward;
+	private int[] backward;
+	private int[] positions;
+
+	/**
+	 * Creates an order over vertices 0..n-1 with no edges, initially in index order.
+	 */
+	public DynamicTopologicalOrder(int n) {
+		this.n = n;
+
+		out = new int[n][];
+		outSize = new int[n];
+		in = new int[n][];
+		inSize = new int[n];
+
+		ord = new int[n];
+		vertexAt = new int[n];
+		for (int v = 0; v < n; v++) {
+			ord[v] = v;
+			vertexAt[v] = v;
+		}
+
+		visited = new int[n];
+		stack = new int[n];
+		forward = new int[16];
+		backward = new int[16];
+		positions = new int[32];
+	}
+
+	private DynamicTopologicalOrder(DynamicTopologicalOrder other) {
+		this.n = other.n;
+
+		out = new int[n][];
+		in = new int[n][];
+		for (int v = 0; v < n; v++) {
+			out[v] = (other.out[v] == null ? null : other.out[v].clone());
+			in[v] = (other.in[v] == null ? null : other.in[v].clone());
+		}
+		outSize = other.outSize.clone();
+		inSize = other.inSize.clone();
+
+		ord = other.ord.clone();
+		vertexAt = other.vertexAt.clone();
+
+		visited = new int[n];
+		stack = new int[n];
+		forward = new int[16];
+		backward = new int[16];
+		positions = new int[32];
+	}
+
+	public DynamicTopologicalOrder copy() {
+		return new DynamicTopologicalOrder(this);
+	}
+
+	public int size() {
+		return n;
+	}
+
+	public int position(int v) {
+		return ord[v];
+	}
+
+	public int vertexAt(int pos) {
+		return vertexAt[pos];
+	}
+
+	public boolean hasEdge(int from, int to) {
+		for (int i = 0; i < outSize[from]; i++) {
+			if (out[from][i] == to)
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Adds the edge from -> to, unless it would close a cycle.
+	 * @return false (leaving the graph unchanged) if the edge would close a cycle
+	 */
+	public boolean addEdge(int from, int to) {
+		if (from == to)
+			return false;
+
+		if (hasEdge(from, to))
+			return true;
+
+		int lb = ord[to];
+		int ub = ord[from];
+		if (lb < ub) {
+			// the edge goes backwards in the current order: find the affected region
+			nextEpoch();
+			int numForward = searchForward(to, from, ub);
+			if (numForward == -1)
+				return false;
+
+			int numBackward = searchBackward(from, lb);
+			reorder(numForward, numBackward);
+		}
+
+		link(from, to);
+		return true;
+	}
+
+	/**
+	 * Removes the edge from -> to, if present. The current order stays valid.
+	 */
+	public void removeEdge(int from, int to) {
+		unlink(out, outSize, from, to);
+		unlink(in, inSize, to, from);
+	}
+
+	/**
+	 * Whether to can be reached from from, searching only positions up to to's.
+	 */
+	public boolean reaches(int from, int to) {
+		if (from == to)
+			return true;
+
+		if (ord[from] > ord[to])
+			return false;
+
+		nextEpoch();
+		return searchForward(from, to, ord[to]) == -1;
+	}
+
+	private void nextEpoch() {
+		if (++epoch == Integer.MAX_VALUE) {
+			Arrays.fill(visited, 0);
+			epoch = 1;
+		}
+	}
+
+	// collects every vertex reachable from start with position <= ub into forward[];
+	// returns -1 as soon as target is reached
+	private int searchForward(int start, int target, int ub) {
+		int count = 0;
+		int top = 0;
+		stack[top++] = start;
+		visited[start] = epoch;
+
+		while (top != 0) {
+			int v = stack[--top];
+			forward = append(forward, count++, v);
+
+			for (int i = 0; i < outSize[v]; i++) {
+				int w = out[v][i];
+				if (w == target)
+					return -1;
+
+				if (visited[w] != epoch && ord[w] < ub) {
+					visited[w] = epoch;
+					stack[top++] = w;
+				}
+			}
+		}
+
+		return count;
+	}
+
+	// collects every vertex that reaches start with position >= lb into backward[]
+	private int searchBackward(int start, int lb) {
+		int count = 0;
+		int top = 0;
+		stack[top++] = start;
+		visited[start] = epoch;
+
+		while (top != 0) {
+			int v = stack[--top];
+			backward = append(backward, count++, v);
+
+			for (int i = 0; i < inSize[v]; i++) {
+				int w = in[v][i];
+				if (visited[w] != epoch && ord[w] > lb) {
+					visited[w] = epoch;
+					stack[top++] = w;
+				}
+			}
+		}
+
+		return count;
+	}
+
+	// the backward set (which must come before the forward set) takes the
+	// lowest of the positions the two sets held, each keeping its own order
+	private void reorder(int numForward, int numBackward) {
+		sortByPosition(forward, numForward);
+		sortByPosition(backward, numBackward);
+
+		int total = numForward + numBackward;
+		if (positions.length < total)
+			positions = new int[Math.max(total, positions.length * 2)];
+
+		for (int i = 0; i < numBackward; i++)
+			positions[i] = ord[backward[i]];
+		for (int i = 0; i < numForward; i++)
+			positions[numBackward + i] = ord[forward[i]];
+		Arrays.sort(positions, 0, total);
+
+		for (int i = 0; i < numBackward; i++)
+			place(backward[i], positions[i]);
+		for (int i = 0; i < numForward; i++)
+			place(forward[i], positions[numBackward + i]);
+	}
+
+	private void place(int v, int pos) {
+		ord[v] = pos;
+		vertexAt[pos] = v;
+	}
+
+	private void sortByPosition(int[] vertices, int count) {
+		// sort (position, vertex) pairs packed into longs, to avoid boxing
+		long[] packed = new long[count];
+		for (int i = 0; i < count; i++)
+			packed[i] = ((long) ord[vertices[i]] << 32) | vertices[i];
+
+		Arrays.sort(packed);
+		for (int i = 0; i < count; i++)
+			vertices[i] = (int) packed[i];
+	}
+
+	private void link(int from, int to) {
+		out[from] = append(out[from], outSize[from]++, to);
+		in[to] = append(in[to], inSize[to]++, from);
+	}
+
+	private static void unlink(int[][] adj, int[] sizes, int v, int w) {
+		for (int i = 0; i < sizes[v]; i++) {
+			if (adj[v][i] == w) {
+				adj[v][i] = adj[v][--sizes[v]];
+				return;
+			}
+		}
+	}
+
+	private static int[] append(int[] arr, int at, int value) {
+		if (arr == null)
+			arr = new int[4];
+		else if (at == arr.length)
+			arr = Arrays.copyOf(arr, arr.length * 2);
+
+		arr[at] = value;
+		return arr;
+	}
+}
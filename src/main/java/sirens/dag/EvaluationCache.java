@@ -0,0 +1,270 @@
+package sirens.dag;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+
+import sirens.models.Task;
+import sirens.models.TaskGraph;
+import sirens.models.TaskQueue;
+import sirens.models.states.MachineType;
+
+/**
+ * Remembers the latency and cost of schedules over one task graph, so a
+ * schedule that comes up again costs a hash instead of an evaluation.
+ *
+ * Schedules are keyed by a 128-bit hash of their queues: each queue hashes
+ * its machine type and its tasks in order, and the queue hashes are summed,
+ * so the same queues in another order (which time the same) share an entry.
+ * Two different schedules could collide, but with 128 bits that is not a
+ * practical concern.
+ *
+ * The cache is bounded, evicting the least recently used entries. It is
+ * split into segments, each locked on its own, so it can be shared between
+ * threads. Misses are evaluated on the calling thread's
+ * {@link ScheduleEvaluator}; a schedule that cannot be timed throws, and is
+ * not cached.
+ */
+public class EvaluationCache {
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	private static final int SEGMENTS = 16;
+	private static final long SEED_HI = 0x9E3779B97F4A7C15L;
+	private static final long SEED_LO = 0xC2B2AE3D27D4EB4FL;
+
+	private final TaskGraph graph;
+	private final Segment[] segments;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public EvaluationCache(TaskGraph graph, int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity must be at least 1, not " + capacity);
+
+		this.graph = graph;
+		this.segments = new Segment[SEGMENTS];
+		for (int i = 0; i < SEGMENTS; i++)
+			segments[i] = new Segment(Math.max(1, capacity / SEGMENTS));
+	}
+
+	/**
+	 * The cache kept with the given graph, of the default capacity.
+	 */
+	public static EvaluationCache of(TaskGraph graph) {
+		return graph.computeIfAbsent(EvaluationCache.class, g -> new EvaluationCache(g, DEFAULT_CAPACITY));
+	}
+
+	/**
+	 * The latency of cutting the tasks into contiguous queues.
+	 * @see ScheduleEvaluator#evaluatePartitions(List, IntPredicate, MachineType)
+	 */
+	public int getLatency(List<Task> tasks, IntPredicate separatorAfter, MachineType mt) {
+		return latencyOf(lookupPartitions(tasks, separatorAfter, mt));
+	}
+
+	public int getCost(List<Task> tasks, IntPredicate separatorAfter, MachineType mt) {
+		return costOf(lookupPartitions(tasks, separatorAfter, mt));
+	}
+
+	public int getLatency(List<TaskQueue> tqs) {
+		return latencyOf(lookupQueues(tqs));
+	}
+
+	public int getCost(List<TaskQueue> tqs) {
+		return costOf(lookupQueues(tqs));
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	public int size() {
+		int toR = 0;
+		for (Segment s : segments) {
+			synchronized (s) {
+				toR += s.size();
+			}
+		}
+
+		return toR;
+	}
+
+	public void clear() {
+		for (Segment s : segments) {
+			synchronized (s) {
+				s.clear();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "hits: " + getHits() + " misses: " + getMisses() + " evictions: " + getEvictions();
+	}
+
+	private long lookupPartitions(List<Task> tasks, IntPredicate separatorAfter, MachineType mt) {
+		long hi = 0;
+		long lo = 0;
+		long qHi = SEED_HI ^ mt.ordinal();
+		long qLo = SEED_LO ^ mt.ordinal();
+		int length = 0;
+
+		for (int i = 0; i < tasks.size(); i++) {
+			int idx = graph.indexOf(tasks.get(i));
+			qHi = step(qHi, idx);
+			qLo = step(qLo, ~idx);
+			length++;
+
+			// as in ScheduleState#loadPartitions, a separator after the last task is ignored
+			if (i == tasks.size() - 1 || separatorAfter.test(i)) {
+				hi += fmix(qHi ^ length);
+				lo += fmix(qLo ^ length);
+				qHi = SEED_HI ^ mt.ordinal();
+				qLo = SEED_LO ^ mt.ordinal();
+				length = 0;
+			}
+		}
+
+		Key key = new Key(hi, lo);
+		Long cached = get(key);
+		if (cached != null)
+			return cached;
+
+		ScheduleState state = ScheduleEvaluator.forCurrentThread(graph).evaluatePartitions(tasks, separatorAfter, mt);
+		return put(key, state);
+	}
+
+	private long lookupQueues(List<TaskQueue> tqs) {
+		long hi = 0;
+		long lo = 0;
+		for (TaskQueue tq : tqs) {
+			long qHi = SEED_HI ^ tq.getMachineType().ordinal();
+			long qLo = SEED_LO ^ tq.getMachineType().ordinal();
+			for (Task t : tq.getTasks()) {
+				int idx = graph.indexOf(t);
+				qHi = step(qHi, idx);
+				qLo = step(qLo, ~idx);
+			}
+
+			hi += fmix(qHi ^ tq.getTasks().size());
+			lo += fmix(qLo ^ tq.getTasks().size());
+		}
+
+		Key key = new Key(hi, lo);
+		Long cached = get(key);
+		if (cached != null)
+			return cached;
+
+		return put(key, ScheduleEvaluator.forCurrentThread(graph).evaluate(tqs));
+	}
+
+	private Long get(Key key) {
+		Segment s = segmentFor(key);
+		Long toR;
+		synchronized (s) {
+			toR = s.get(key);
+		}
+
+		if (toR != null)
+			hits.increment();
+		else
+			misses.increment();
+
+		return toR;
+	}
+
+	private long put(Key key, ScheduleState state) {
+		long toR = ((long) state.getLatency() << 32) | (state.getCost() & 0xFFFFFFFFL);
+		Segment s = segmentFor(key);
+		synchronized (s) {
+			s.put(key, toR);
+		}
+
+		return toR;
+	}
+
+	private Segment segmentFor(Key key) {
+		return segments[(int) (key.lo >>> 60) & (SEGMENTS - 1)];
+	}
+
+	private static int latencyOf(long entry) {
+		return (int) (entry >> 32);
+	}
+
+	private static int costOf(long entry) {
+		return (int) entry;
+	}
+
+	// one task of a queue, murmur3 style
+	private static long step(long h, int idx) {
+		long k = idx * 0x87C37B91114253D5L;
+		k = Long.rotateLeft(k, 31) * 0x4CF5AD432745937FL;
+		return Long.rotateLeft(h ^ k, 27) * 5 + 0x52DCE729;
+	}
+
+	private static long fmix(long k) {
+		k ^= k >>> 33;
+		k *= 0xFF51AFD7ED558CCDL;
+		k ^= k >>> 33;
+		k *= 0xC4CEB9FE1A85EC53L;
+		k ^= k >>> 33;
+		return k;
+	}
+
+	private static final class Key {
+		private final long hi;
+		private final long lo;
+
+		private Key(long hi, long lo) {
+			this.hi = hi;
+			this.lo = lo;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+
+			Key other = (Key) o;
+			return hi == other.hi && lo == other.lo;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (hi ^ (hi >>> 32));
+		}
+	}
+
+	// least recently used first; guarded by its own monitor
+	private class Segment extends LinkedHashMap<Key, Long> {
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+
+		private Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+			if (size() <= capacity)
+				return false;
+
+			evictions.increment();
+			return true;
+		}
+	}
+}
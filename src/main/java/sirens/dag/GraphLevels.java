@@ -0,0 +1,190 @@
+package sirens.dag;
+
+import sirens.models.Task;
+import sirens.models.TaskGraph;
+import sirens.models.states.MachineType;
+
+/**
+ * The levels of every task of a graph with every task on its own machine of
+ * one type, found in one forward and one backward pass over a topological
+ * order: O(V + E).
+ *
+ * The t-level of a task is the length of the longest path to it, not counting
+ * its own latency, and so its earliest start (ASAP). The b-level is the length
+ * of the longest path from it to a sink, counting its own latency. A path's
+ * length sums the latencies of its tasks and the weights of its edges. The
+ * critical path is a longest path in the graph, and a task's latest start
+ * (ALAP) is the critical path length minus its b-level.
+ *
+ * Levels are computed once per graph and machine type and shared (see
+ * {@link TaskGraph#computeIfAbsent}), so callers must not modify the arrays,
+ * which are indexed by task index in the graph.
+ */
+public final class GraphLevels {
+	private final TaskGraph graph;
+	private final MachineType machineType;
+
+	private final int[] topLevels;
+	private final int[] bottomLevels;
+	private final int[] alap;
+
+	// the child each task's b-level comes through, or -1 for sinks
+	private final int[] criticalChildren;
+
+	private final int criticalPathLength;
+	private final int[] criticalPath;
+
+	private GraphLevels(TaskGraph graph, MachineType mt) {
+		this.graph = graph;
+		this.machineType = mt;
+
+		int n = graph.size();
+		topLevels = new int[n];
+		bottomLevels = new int[n];
+		alap = new int[n];
+		criticalChildren = new int[n];
+
+		TopologicalOrders orders = TopologicalOrders.of(graph);
+
+		// parents first
+		for (int t : orders.forward()) {
+			int max = 0;
+			for (int k = graph.parentsStart(t); k < graph.parentsEnd(t); k++) {
+				int p = graph.parentAt(k);
+				max = Math.max(max, topLevels[p] + graph.getLatency(p, mt) + graph.parentWeightAt(k));
+			}
+
+			topLevels[t] = max;
+		}
+
+		// children first
+		for (int t : orders.reverse()) {
+			int max = 0;
+			int through = -1;
+			for (int k = graph.childrenStart(t); k < graph.childrenEnd(t); k++) {
+				int viaChild = graph.childWeightAt(k) + bottomLevels[graph.childAt(k)];
+				if (through == -1 || viaChild > max) {
+					max = viaChild;
+					through = graph.childAt(k);
+				}
+			}
+
+			bottomLevels[t] = graph.getLatency(t, mt) + max;
+			criticalChildren[t] = through;
+		}
+
+		// every longest path starts at a source, where the b-level is the whole path
+		int length = 0;
+		int start = -1;
+		for (int t = 0; t < n; t++) {
+			if (graph.inDegree(t) == 0 && (start == -1 || bottomLevels[t] > length)) {
+				length = bottomLevels[t];
+				start = t;
+			}
+		}
+
+		criticalPathLength = length;
+		for (int t = 0; t < n; t++)
+			alap[t] = length - bottomLevels[t];
+
+		criticalPath = (start == -1 ? new int[0] : pathFrom(start));
+	}
+
+	public static GraphLevels of(TaskGraph graph, MachineType mt) {
+		return graph.computeIfAbsent(ByMachineType.class, ByMachineType::new).get(mt);
+	}
+
+	public TaskGraph getGraph() {
+		return graph;
+	}
+
+	public MachineType getMachineType() {
+		return machineType;
+	}
+
+	/**
+	 * The t-level, or earliest start, of each task.
+	 */
+	public int[] getTopLevels() {
+		return topLevels;
+	}
+
+	/**
+	 * The b-level of each task, which is never less than its own latency.
+	 */
+	public int[] getBottomLevels() {
+		return bottomLevels;
+	}
+
+	public int[] getASAP() {
+		return topLevels;
+	}
+
+	public int[] getALAP() {
+		return alap;
+	}
+
+	public int getTopLevel(Task t) {
+		return topLevels[graph.indexOf(t)];
+	}
+
+	public int getBottomLevel(Task t) {
+		return bottomLevels[graph.indexOf(t)];
+	}
+
+	public int getCriticalPathLength() {
+		return criticalPathLength;
+	}
+
+	/**
+	 * A longest path in the graph, source first.
+	 */
+	public int[] getCriticalPath() {
+		return criticalPath;
+	}
+
+	/**
+	 * The child the longest path from the given task continues through, or -1
+	 * if it is a sink.
+	 */
+	public int getCriticalChild(int idx) {
+		return criticalChildren[idx];
+	}
+
+	/**
+	 * The longest path from the given task to a sink, the task first. Costs
+	 * O(length of the path), and is not cached.
+	 */
+	public int[] pathFrom(int idx) {
+		int length = 0;
+		for (int t = idx; t != -1; t = criticalChildren[t])
+			length++;
+
+		int[] toR = new int[length];
+		int i = 0;
+		for (int t = idx; t != -1; t = criticalChildren[t])
+			toR[i++] = t;
+
+		return toR;
+	}
+
+	// the levels for each machine type, computed on first use
+	private static final class ByMachineType {
+		private final TaskGraph graph;
+		private final GraphLevels[] levels = new GraphLevels[MachineType.values().length];
+
+		private ByMachineType(TaskGraph graph) {
+			this.graph = graph;
+		}
+
+		private synchronized GraphLevels get(MachineType mt) {
+			GraphLevels toR = levels[mt.ordinal()];
+			if (toR == null) {
+				toR = new GraphLevels(graph, mt);
+				levels[mt.ordinal()] = toR;
+			}
+
+			return toR;
+		}
+	}
+}
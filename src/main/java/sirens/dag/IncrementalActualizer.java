@@ -0,0 +1,753 @@
+package sirens.dag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import sirens.models.StartEndTime;
+import sirens.models.Task;
+import sirens.models.TaskGraph;
+import sirens.models.TaskQueue;
+import sirens.models.states.MachineType;
+
+/**
+ * Keeps a timed schedule and re-times it after local edits (merging two
+ * queues, moving a task, splitting a queue). The tasks are kept in a
+ * {@link DynamicTopologicalOrder} over both dependency edges and queue order,
+ * which also rejects an edit that closes a cycle. After an edit, the edited
+ * tasks are re-timed in that order, and a task further downstream is only
+ * re-timed if one of its predecessors moved.
+ *
+ * Edits are journaled: {@link #commit()} keeps them and {@link #rollback()}
+ * restores the schedule as it was at the last commit. Queues are referred to
+ * by integer handles; the handle of the i-th queue given to the constructor
+ * is i.
+ *
+ * Not thread safe.
+ */
+public class IncrementalActualizer {
+	/** The latency or cost reported for an edit that makes the schedule unbuildable. */
+	public static final int INFEASIBLE = Integer.MAX_VALUE;
+
+	private final TaskGraph graph;
+
+	// per task
+	private final int[] queueOf;
+	private final int[] posInQueue;
+	private final int[] start;
+	private final int[] end;
+	private final int[] networkingStart;
+
+	// per queue handle
+	private int[][] members;
+	private int[] sizes;
+	private MachineType[] machineTypes;
+	private int numQueues;
+
+	// a topological order over the dependency edges and the queue edges (each
+	// task to its queue successor). linked[t] is the successor whose edge is in
+	// the order, or -1; a queue edge that would close a cycle waits in
+	// pendingLinks, and the schedule is infeasible until it can be linked
+	private final DynamicTopologicalOrder order;
+	private final int[] linked;
+	private final boolean[] linkPending;
+	private int[] pendingLinks;
+	private int numPendingLinks;
+
+	// scratch space for re-timing: the edited tasks, and the tasks to re-time
+	// by position in the order
+	private final boolean[] queued;
+	private int[] waiting;
+	private int numWaiting;
+	private final LongMaxHeap frontier;
+
+	// journal of the current transaction
+	private final int[] journalStamp;
+	private int journalEpoch;
+	private int[] journalTasks;
+	private int[] journalTimes;
+	private int journalSize;
+	private final int[] linkStamp;
+	private int[] linkJournal;
+	private int linkJournalSize;
+	private final List<QueueSnapshot> queueJournal;
+	private int numQueuesAtCommit;
+	private boolean feasible;
+
+	public IncrementalActualizer(List<TaskQueue> tqs) {
+		List<Task> all = new ArrayList<>();
+		tqs.forEach(tq -> all.addAll(tq.getTasks()));
+		graph = TaskGraph.of(all);
+
+		int n = graph.size();
+		queueOf = new int[n];
+		posInQueue = new int[n];
+		start = new int[n];
+		end = new int[n];
+		networkingStart = new int[n];
+
+		linked = new int[n];
+		linkPending = new boolean[n];
+		pendingLinks = new int[16];
+
+		queued = new boolean[n];
+		waiting = new int[16];
+		frontier = new LongMaxHeap(n);
+
+		journalStamp = new int[n];
+		journalTasks = new int[16];
+		journalTimes = new int[48];
+		linkStamp = new int[n];
+		linkJournal = new int[32];
+		queueJournal = new ArrayList<>();
+
+		Arrays.fill(queueOf, -1);
+		Arrays.fill(linked, -1);
+		numQueues = tqs.size();
+		members = new int[Math.max(numQueues, 1)][];
+		sizes = new int[members.length];
+		machineTypes = new MachineType[members.length];
+
+		for (int q = 0; q < numQueues; q++) {
+			List<Task> tasks = tqs.get(q).getTasks();
+			members[q] = new int[Math.max(tasks.size(), 1)];
+			sizes[q] = tasks.size();
+			machineTypes[q] = tqs.get(q).getMachineType();
+
+			for (int i = 0; i < tasks.size(); i++) {
+				int t = graph.indexOf(tasks.get(i));
+				members[q][i] = t;
+				queueOf[t] = q;
+				posInQueue[t] = i;
+			}
+		}
+
+		ScheduleState state = new ScheduleEvaluator(graph).evaluate(tqs);
+		for (int q = 0; q < numQueues; q++) {
+			for (int i = 0; i < sizes[q]; i++) {
+				int t = members[q][i];
+				start[t] = state.getStart(t);
+				end[t] = state.getEnd(t);
+				networkingStart[t] = state.getNetworkingStart(t);
+			}
+		}
+
+		order = new DynamicTopologicalOrder(n);
+		for (int t = 0; t < n; t++) {
+			for (int k = graph.childrenStart(t); k < graph.childrenEnd(t); k++)
+				order.addEdge(t, graph.childAt(k));
+		}
+
+		for (int t = 0; t < n; t++) {
+			if (queueSuccessor(t) != -1)
+				addPendingLink(t);
+		}
+		linkPendingEdges();
+
+		numQueuesAtCommit = numQueues;
+		feasible = (numPendingLinks == 0);
+		journalEpoch = 1;
+	}
+
+	private IncrementalActualizer(IncrementalActualizer other) {
+		graph = other.graph;
+
+		int n = graph.size();
+		queueOf = other.queueOf.clone();
+		posInQueue = other.posInQueue.clone();
+		start = other.start.clone();
+		end = other.end.clone();
+		networkingStart = other.networkingStart.clone();
+
+		// a committed schedule has every queue edge linked
+		order = other.order.copy();
+		linked = other.linked.clone();
+		linkPending = new boolean[n];
+		pendingLinks = new int[16];
+
+		queued = new boolean[n];
+		waiting = new int[16];
+		frontier = new LongMaxHeap(n);
+
+		journalStamp = new int[n];
+		journalTasks = new int[16];
+		journalTimes = new int[48];
+		linkStamp = new int[n];
+		linkJournal = new int[32];
+		queueJournal = new ArrayList<>();
+
+		// queue rows are never edited in place, so they can be shared
+		members = other.members.clone();
+		sizes = other.sizes.clone();
+		machineTypes = other.machineTypes.clone();
+		numQueues = other.numQueues;
+
+		numQueuesAtCommit = numQueues;
+		feasible = true;
+		journalEpoch = 1;
+	}
+
+	/**
+	 * An independent copy of the committed schedule, for example to score
+	 * edits on another thread. Costs O(tasks + edges + queues).
+	 */
+	public IncrementalActualizer copy() {
+		if (journalSize != 0 || !queueJournal.isEmpty() || numQueues != numQueuesAtCommit)
+			throw new DAGException("Cannot copy a schedule with uncommitted edits!");
+
+		return new IncrementalActualizer(this);
+	}
+
+	public TaskGraph getGraph() {
+		return graph;
+	}
+
+	public int getQueueHandle(Task t) {
+		return queueOf[graph.indexOf(t)];
+	}
+
+	public int getQueueSize(int q) {
+		return sizes[q];
+	}
+
+	/**
+	 * The graph index of the i-th task of queue q.
+	 */
+	public int getQueueMember(int q, int i) {
+		return members[q][i];
+	}
+
+	/**
+	 * The handle of the queue holding the task with the given graph index, or -1.
+	 */
+	public int getQueueHandle(int idx) {
+		return queueOf[idx];
+	}
+
+	public MachineType getMachineType(int q) {
+		return machineTypes[q];
+	}
+
+	public boolean isFeasible() {
+		return feasible;
+	}
+
+	public StartEndTime getStartEndTime(Task t) {
+		int idx = graph.indexOf(t);
+		return new StartEndTime(start[idx], end[idx], networkingStart[idx]);
+	}
+
+	/**
+	 * The latency of the current schedule, as {@link CostAnalyzer#getLatency} would report it.
+	 */
+	public int getLatency() {
+		if (!feasible)
+			return INFEASIBLE;
+
+		int max = Integer.MIN_VALUE;
+		for (int q = 0; q < numQueues; q++) {
+			if (sizes[q] != 0)
+				max = Math.max(max, end[members[q][sizes[q] - 1]] + 60);
+		}
+
+		return max;
+	}
+
+	/**
+	 * The cost of the current schedule, as {@link CostAnalyzer#findCostOfBuiltTasks} would report it.
+	 */
+	public int getCost() {
+		if (!feasible)
+			return INFEASIBLE;
+
+		int total = 0;
+		for (int q = 0; q < numQueues; q++) {
+			if (sizes[q] == 0)
+				continue;
+
+			// as in TaskQueue#getStartTime, the earliest start, which need not be the first
+			int first = Integer.MAX_VALUE;
+			for (int i = 0; i < sizes[q]; i++)
+				first = Math.min(first, start[members[q][i]]);
+
+			total += (end[members[q][sizes[q] - 1]] - first) * machineTypes[q].getCost();
+		}
+
+		return total;
+	}
+
+	/**
+	 * Appends the tasks of queue b to queue a, and places the result on the given machine type.
+	 * Queue b is left empty.
+	 * @return the new latency of the schedule, or {@link #INFEASIBLE}
+	 */
+	public int concatQueues(int a, int b, MachineType mt) {
+		int[] merged = new int[sizes[a] + sizes[b]];
+		System.arraycopy(members[a], 0, merged, 0, sizes[a]);
+		System.arraycopy(members[b], 0, merged, sizes[a], sizes[b]);
+		return replaceQueues(a, b, merged, mt);
+	}
+
+	/**
+	 * Merges the tasks of queues a and b into queue a, ordered by task ID, and
+	 * places the result on the given machine type. Queue b is left empty.
+	 * @return the new latency of the schedule, or {@link #INFEASIBLE}
+	 */
+	public int mergeQueues(int a, int b, MachineType mt) {
+		int[] merged = new int[sizes[a] + sizes[b]];
+		System.arraycopy(members[a], 0, merged, 0, sizes[a]);
+		System.arraycopy(members[b], 0, merged, sizes[a], sizes[b]);
+		sortByID(merged);
+		return replaceQueues(a, b, merged, mt);
+	}
+
+	private int replaceQueues(int a, int b, int[] merged, MachineType mt) {
+		if (a == b)
+			throw new DAGException("Cannot merge a task queue with itself!");
+
+		snapshot(a);
+		snapshot(b);
+
+		members[a] = (merged.length == 0 ? new int[1] : merged);
+		sizes[a] = merged.length;
+		machineTypes[a] = mt;
+		sizes[b] = 0;
+
+		for (int i = 0; i < merged.length; i++) {
+			queueOf[merged[i]] = a;
+			posInQueue[merged[i]] = i;
+		}
+
+		// every merged task has a new queue predecessor and possibly new networking time
+		relink(merged, merged.length);
+		return retime(merged, merged.length);
+	}
+
+	/**
+	 * Moves a task to the given position of another (or the same) queue.
+	 * @return the new latency of the schedule, or {@link #INFEASIBLE}
+	 */
+	public int moveTask(Task task, int toQueue, int position) {
+		int t = graph.indexOf(task);
+		int from = queueOf[t];
+
+		snapshot(from);
+		snapshot(toQueue);
+
+		// the task's old and new queue predecessors get new successors
+		int[] relinked = new int[3];
+		int numRelinked = 0;
+		if (posInQueue[t] > 0)
+			relinked[numRelinked++] = members[from][posInQueue[t] - 1];
+
+		// the task's old queue successor loses its predecessor
+		int[] seeds = new int[graph.inDegree(t) + 3];
+		int numSeeds = 0;
+		if (posInQueue[t] + 1 < sizes[from])
+			seeds[numSeeds++] = members[from][posInQueue[t] + 1];
+
+		removeAt(from, posInQueue[t]);
+		insertAt(toQueue, position, t);
+		seeds[numSeeds++] = t;
+
+		relinked[numRelinked++] = t;
+		if (position > 0)
+			relinked[numRelinked++] = members[toQueue][position - 1];
+		relink(relinked, numRelinked);
+
+		// the task's new queue successor gains a predecessor
+		if (position + 1 < sizes[toQueue])
+			seeds[numSeeds++] = members[toQueue][position + 1];
+
+		// parents may now need more (or less) time for networking
+		for (int k = graph.parentsStart(t); k < graph.parentsEnd(t); k++) {
+			if (queueOf[graph.parentAt(k)] != -1)
+				seeds[numSeeds++] = graph.parentAt(k);
+		}
+
+		return retime(seeds, numSeeds);
+	}
+
+	/**
+	 * Splits a queue in two, moving every task at or after the given position
+	 * into a new queue on the same machine type.
+	 * @return the handle of the new queue
+	 */
+	public int splitQueue(int q, int at) {
+		snapshot(q);
+
+		int tail = sizes[q] - at;
+		int handle = newQueue(machineTypes[q], tail);
+		System.arraycopy(members[q], at, members[handle], 0, tail);
+		sizes[handle] = tail;
+		sizes[q] = at;
+
+		for (int i = 0; i < tail; i++) {
+			int t = members[handle][i];
+			queueOf[t] = handle;
+			posInQueue[t] = i;
+		}
+
+		// the last task left in q loses its successor
+		if (at > 0)
+			relink(new int[] { members[q][at - 1] }, 1);
+
+		// every task on either side of the split may have new networking time,
+		// and the first task of the new queue loses its predecessor
+		int[] seeds = new int[sizes[q] + tail];
+		System.arraycopy(members[q], 0, seeds, 0, sizes[q]);
+		System.arraycopy(members[handle], 0, seeds, sizes[q], tail);
+		retime(seeds, seeds.length);
+
+		return handle;
+	}
+
+	/**
+	 * Keeps every edit made since the last commit.
+	 */
+	public void commit() {
+		if (!feasible)
+			throw new DAGException("Cannot commit an edit that makes the schedule unbuildable!");
+
+		journalEpoch++;
+		journalSize = 0;
+		linkJournalSize = 0;
+		queueJournal.clear();
+		numQueuesAtCommit = numQueues;
+	}
+
+	/**
+	 * Undoes every edit made since the last commit.
+	 */
+	public void rollback() {
+		for (int i = queueJournal.size() - 1; i >= 0; i--) {
+			QueueSnapshot s = queueJournal.get(i);
+			members[s.queue] = s.members;
+			sizes[s.queue] = s.size;
+			machineTypes[s.queue] = s.machineType;
+
+			for (int j = 0; j < s.size; j++) {
+				queueOf[s.members[j]] = s.queue;
+				posInQueue[s.members[j]] = j;
+			}
+		}
+
+		for (int q = numQueuesAtCommit; q < numQueues; q++) {
+			members[q] = null;
+			sizes[q] = 0;
+		}
+		numQueues = numQueuesAtCommit;
+
+		for (int i = 0; i < journalSize; i++) {
+			int t = journalTasks[i];
+			start[t] = journalTimes[3 * i];
+			end[t] = journalTimes[3 * i + 1];
+			networkingStart[t] = journalTimes[3 * i + 2];
+		}
+
+		// every edge goes before the committed ones come back, so that none of
+		// them is rejected for a cycle through an edge about to go
+		for (int i = 0; i < linkJournalSize; i++)
+			unlink(linkJournal[2 * i]);
+		for (int i = 0; i < linkJournalSize; i++)
+			link(linkJournal[2 * i], linkJournal[2 * i + 1]);
+
+		for (int i = 0; i < numPendingLinks; i++)
+			linkPending[pendingLinks[i]] = false;
+		numPendingLinks = 0;
+
+		for (int i = 0; i < numWaiting; i++)
+			queued[waiting[i]] = false;
+		numWaiting = 0;
+
+		feasible = true;
+		journalEpoch++;
+		journalSize = 0;
+		linkJournalSize = 0;
+		queueJournal.clear();
+	}
+
+	/**
+	 * Builds a fresh, unbuilt list of the non-empty queues in the current schedule.
+	 */
+	public List<TaskQueue> toTaskQueues() {
+		List<TaskQueue> toR = new ArrayList<>(numQueues);
+		for (int q = 0; q < numQueues; q++) {
+			if (sizes[q] != 0)
+				toR.add(toTaskQueue(q));
+		}
+
+		return toR;
+	}
+
+	/**
+	 * Builds a fresh, unbuilt copy of queue q.
+	 */
+	public TaskQueue toTaskQueue(int q) {
+		TaskQueue toR = new TaskQueue(machineTypes[q]);
+		for (int i = 0; i < sizes[q]; i++)
+			toR.add(graph.getTask(members[q][i]));
+
+		return toR;
+	}
+
+	private int retime(int[] seeds, int numSeeds) {
+		for (int i = 0; i < numSeeds; i++) {
+			int t = seeds[i];
+			if (!queued[t]) {
+				queued[t] = true;
+				waiting = append(waiting, numWaiting++, t);
+			}
+		}
+
+		// the order only means anything once every queue edge is in it; until
+		// then the edited tasks wait, in case a later edit breaks the cycle
+		feasible = (numPendingLinks == 0);
+		if (!feasible)
+			return INFEASIBLE;
+
+		for (int i = 0; i < numWaiting; i++)
+			frontier.add(frontierKey(waiting[i]));
+		numWaiting = 0;
+
+		// every predecessor of a task comes before it in the order, so a task
+		// is re-timed at most once, after every predecessor that moved
+		while (!frontier.isEmpty()) {
+			int t = (int) ~frontier.poll();
+			queued[t] = false;
+
+			if (!retimeTask(t))
+				continue;
+
+			for (int k = graph.childrenStart(t); k < graph.childrenEnd(t); k++) {
+				if (queueOf[graph.childAt(k)] != -1)
+					enqueue(graph.childAt(k));
+			}
+
+			int next = queueSuccessor(t);
+			if (next != -1)
+				enqueue(next);
+		}
+
+		return getLatency();
+	}
+
+	private void enqueue(int t) {
+		if (queued[t])
+			return;
+
+		queued[t] = true;
+		frontier.add(frontierKey(t));
+	}
+
+	// earliest position first
+	private long frontierKey(int t) {
+		return ~((long) order.position(t) << 32 | t);
+	}
+
+	// brings the queue edges of the given tasks in line with their queues
+	private void relink(int[] tasks, int count) {
+		// the stale edges go first, so that no new edge is rejected for a
+		// cycle through an edge about to go
+		for (int i = 0; i < count; i++) {
+			int t = tasks[i];
+			if (linked[t] != queueSuccessor(t)) {
+				journalLink(t);
+				unlink(t);
+				addPendingLink(t);
+			}
+		}
+
+		linkPendingEdges();
+	}
+
+	// links every pending queue edge that no longer closes a cycle, since an
+	// edit elsewhere may have broken the one that kept it out
+	private void linkPendingEdges() {
+		int kept = 0;
+		for (int i = 0; i < numPendingLinks; i++) {
+			int t = pendingLinks[i];
+			int next = queueSuccessor(t);
+			if (next == -1 || link(t, next)) {
+				linkPending[t] = false;
+			} else {
+				pendingLinks[kept++] = t;
+			}
+		}
+
+		numPendingLinks = kept;
+	}
+
+	private void addPendingLink(int t) {
+		if (linkPending[t])
+			return;
+
+		linkPending[t] = true;
+		pendingLinks = append(pendingLinks, numPendingLinks++, t);
+	}
+
+	// a queue edge that is also a dependency edge is already in the order, and stays there
+	private boolean link(int t, int next) {
+		if (next != -1 && !graph.hasEdge(t, next) && !order.addEdge(t, next))
+			return false;
+
+		linked[t] = next;
+		return true;
+	}
+
+	private void unlink(int t) {
+		if (linked[t] != -1 && !graph.hasEdge(t, linked[t]))
+			order.removeEdge(t, linked[t]);
+
+		linked[t] = -1;
+	}
+
+	private void journalLink(int t) {
+		if (linkStamp[t] == journalEpoch)
+			return;
+
+		linkStamp[t] = journalEpoch;
+		if (2 * linkJournalSize == linkJournal.length)
+			linkJournal = Arrays.copyOf(linkJournal, linkJournal.length * 2);
+
+		linkJournal[2 * linkJournalSize] = t;
+		linkJournal[2 * linkJournalSize + 1] = linked[t];
+		linkJournalSize++;
+	}
+
+	private boolean retimeTask(int t) {
+		int q = queueOf[t];
+		int pos = posInQueue[t];
+		int myStart = (pos == 0 ? 0 : end[members[q][pos - 1]]);
+
+		for (int k = graph.parentsStart(t); k < graph.parentsEnd(t); k++) {
+			int p = graph.parentAt(k);
+			if (queueOf[p] == -1)
+				throw new DAGException("Task " + graph.getTask(p) + " is not in a task queue!");
+
+			myStart = Math.max(myStart, end[p]);
+		}
+
+		int networkingTime = 0;
+		for (int k = graph.childrenStart(t); k < graph.childrenEnd(t); k++) {
+			if (queueOf[graph.childAt(k)] != q)
+				networkingTime += graph.childWeightAt(k);
+		}
+
+		int myEnd = myStart + graph.getLatency(t, machineTypes[q]) + networkingTime;
+		int myNetworkingStart = myEnd - networkingTime;
+
+		if (myStart == start[t] && myEnd == end[t] && myNetworkingStart == networkingStart[t])
+			return false;
+
+		journal(t);
+		start[t] = myStart;
+		end[t] = myEnd;
+		networkingStart[t] = myNetworkingStart;
+		return true;
+	}
+
+	private int queueSuccessor(int t) {
+		int q = queueOf[t];
+		if (q == -1 || posInQueue[t] + 1 >= sizes[q])
+			return -1;
+
+		return members[q][posInQueue[t] + 1];
+	}
+
+	private void journal(int t) {
+		if (journalStamp[t] == journalEpoch)
+			return;
+
+		journalStamp[t] = journalEpoch;
+		if (journalSize == journalTasks.length) {
+			journalTasks = Arrays.copyOf(journalTasks, journalSize * 2);
+			journalTimes = Arrays.copyOf(journalTimes, journalSize * 6);
+		}
+
+		journalTasks[journalSize] = t;
+		journalTimes[3 * journalSize] = start[t];
+		journalTimes[3 * journalSize + 1] = end[t];
+		journalTimes[3 * journalSize + 2] = networkingStart[t];
+		journalSize++;
+	}
+
+	private void snapshot(int q) {
+		for (QueueSnapshot s : queueJournal) {
+			if (s.queue == q)
+				return;
+		}
+
+		if (q >= numQueuesAtCommit)
+			return; // created during this transaction, dropped on rollback anyway
+
+		queueJournal.add(new QueueSnapshot(q, Arrays.copyOf(members[q], Math.max(sizes[q], 1)),
+				sizes[q], machineTypes[q]));
+	}
+
+	private int newQueue(MachineType mt, int capacity) {
+		if (numQueues == members.length) {
+			int grown = numQueues * 2;
+			members = Arrays.copyOf(members, grown);
+			sizes = Arrays.copyOf(sizes, grown);
+			machineTypes = Arrays.copyOf(machineTypes, grown);
+		}
+
+		members[numQueues] = new int[Math.max(capacity, 1)];
+		sizes[numQueues] = 0;
+		machineTypes[numQueues] = mt;
+		return numQueues++;
+	}
+
+	private void removeAt(int q, int pos) {
+		// copy on write, so a snapshot taken before the edit stays intact
+		int[] m = Arrays.copyOf(members[q], members[q].length);
+		System.arraycopy(m, pos + 1, m, pos, sizes[q] - pos - 1);
+		members[q] = m;
+		sizes[q]--;
+		for (int i = pos; i < sizes[q]; i++)
+			posInQueue[m[i]] = i;
+	}
+
+	private void insertAt(int q, int pos, int t) {
+		int[] m = Arrays.copyOf(members[q], Math.max(members[q].length, sizes[q] + 1));
+		System.arraycopy(m, pos, m, pos + 1, sizes[q] - pos);
+		m[pos] = t;
+		members[q] = m;
+		sizes[q]++;
+		queueOf[t] = q;
+		for (int i = pos; i < sizes[q]; i++)
+			posInQueue[m[i]] = i;
+	}
+
+	private static int[] append(int[] arr, int at, int value) {
+		if (at == arr.length)
+			arr = Arrays.copyOf(arr, arr.length * 2);
+
+		arr[at] = value;
+		return arr;
+	}
+
+	private void sortByID(int[] tasks) {
+		long[] keyed = new long[tasks.length];
+		for (int i = 0; i < tasks.length; i++)
+			keyed[i] = ((long) graph.getTask(tasks[i]).getID() << 32) | tasks[i];
+		Arrays.sort(keyed);
+		for (int i = 0; i < tasks.length; i++)
+			tasks[i] = (int) keyed[i];
+	}
+
+	private static class QueueSnapshot {
+		private final int queue;
+		private final int[] members;
+		private final int size;
+		private final MachineType machineType;
+
+		private QueueSnapshot(int queue, int[] members, int size, MachineType machineType) {
+			this.queue = queue;
+			this.members = members;
+			this.size = size;
+			this.machineType = machineType;
+		}
+	}
+}
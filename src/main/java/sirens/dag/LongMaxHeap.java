@@ -0,0 +1,59 @@
+package sirens.dag;
+
+import java.util.Arrays;
+
+/**
+ * A binary max-heap of longs, without boxing. Callers pack what they order
+ * by into the high bits and an index into the low ones. It grows past its
+ * initial capacity if it has to.
+ */
+public final class LongMaxHeap {
+	private long[] heap;
+	private int size;
+
+	public LongMaxHeap(int capacity) {
+		heap = new long[capacity];
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public void add(long value) {
+		if (size == heap.length)
+			heap = Arrays.copyOf(heap, Math.max(1, size * 2));
+
+		int i = size++;
+		while (i > 0 && heap[(i - 1) / 2] < value) {
+			heap[i] = heap[(i - 1) / 2];
+			i = (i - 1) / 2;
+		}
+		heap[i] = value;
+	}
+
+	public long poll() {
+		long top = heap[0];
+		long last = heap[--size];
+
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child + 1 < size && heap[child + 1] > heap[child])
+				child++;
+
+			if (child >= size || heap[child] <= last)
+				break;
+
+			heap[i] = heap[child];
+			i = child;
+		}
+		if (size > 0)
+			heap[i] = last;
+
+		return top;
+	}
+}
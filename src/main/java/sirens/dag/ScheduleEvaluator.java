@@ -0,0 +1,84 @@
+package sirens.dag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import sirens.models.Task;
+import sirens.models.TaskGraph;
+import sirens.models.TaskQueue;
+import sirens.models.states.MachineType;
+
+/**
+ * Scores schedules over one task graph without building their tasks. Each
+ * evaluator reuses a single {@link ScheduleState} and engine, so it must stay
+ * confined to one thread; use {@link #forCurrentThread(TaskGraph)} to get one
+ * per thread.
+ */
+public class ScheduleEvaluator {
+	private static final ThreadLocal<ScheduleEvaluator> CURRENT = new ThreadLocal<>();
+
+	private final ScheduleState state;
+	private final ActualizationEngine engine;
+
+	public ScheduleEvaluator(TaskGraph graph) {
+		this.state = new ScheduleState(graph);
+		this.engine = new ActualizationEngine(graph);
+	}
+
+	/**
+	 * Returns this thread's evaluator for the given graph, creating it if needed.
+	 */
+	public static ScheduleEvaluator forCurrentThread(TaskGraph graph) {
+		ScheduleEvaluator current = CURRENT.get();
+		if (current == null || current.getGraph() != graph) {
+			current = new ScheduleEvaluator(graph);
+			CURRENT.set(current);
+		}
+
+		return current;
+	}
+
+	/**
+	 * Returns this thread's evaluator for the graph the given queues' tasks belong to.
+	 */
+	public static ScheduleEvaluator forQueues(List<TaskQueue> tqs) {
+		List<Task> tasks = new ArrayList<>();
+		for (TaskQueue tq : tqs)
+			tasks.addAll(tq.getTasks());
+
+		return forCurrentThread(TaskGraph.of(tasks));
+	}
+
+	public TaskGraph getGraph() {
+		return state.getGraph();
+	}
+
+	/**
+	 * Times the given queues. The returned state is owned by this evaluator,
+	 * and is overwritten by the next evaluation.
+	 */
+	public ScheduleState evaluate(List<TaskQueue> tqs) {
+		state.load(tqs);
+		engine.actualize(state);
+		return state;
+	}
+
+	/**
+	 * Times the schedule made by cutting the given tasks into contiguous queues.
+	 * @see ScheduleState#loadPartitions(List, IntPredicate, MachineType)
+	 */
+	public ScheduleState evaluatePartitions(List<Task> tasks, IntPredicate separatorAfter, MachineType mt) {
+		state.loadPartitions(tasks, separatorAfter, mt);
+		engine.actualize(state);
+		return state;
+	}
+
+	public int getLatency(List<TaskQueue> tqs) {
+		return evaluate(tqs).getLatency();
+	}
+
+	public int findCost(List<TaskQueue> tqs) {
+		return evaluate(tqs).getCost();
+	}
+}
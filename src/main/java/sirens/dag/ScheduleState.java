@@ -0,0 +1,253 @@
+package sirens.dag;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import sirens.models.ScheduleTimeline;
+import sirens.models.Task;
+import sirens.models.TaskGraph;
+import sirens.models.TaskQueue;
+import sirens.models.states.MachineType;
+
+/**
+ * Everything one evaluation of a schedule needs to know that is not part of
+ * the (immutable) task graph: which queue each task is on, the order of each
+ * queue, and the start and end time each task was given.
+ *
+ * Loading a schedule into a state never touches the tasks or the task queues
+ * it was loaded from, so any number of states can be evaluated against one
+ * shared graph at once. A single state is not thread safe.
+ *
+ * A state is meant to be loaded over and over: loading resets the timeline in
+ * O(1) and only clears the tasks the previous schedule used, so evaluating
+ * a schedule does not allocate once the per-queue arrays have grown to fit.
+ */
+public class ScheduleState {
+	private final TaskGraph graph;
+
+	// per task
+	private final int[] queueOf;
+	private final ScheduleTimeline timeline;
+
+	// per queue, tasks are stored back to back in order[queueOffsets[q] .. queueOffsets[q+1])
+	private final int[] order;
+	private int[] queueOffsets;
+	private MachineType[] machineTypes;
+
+	// filled in by summarize(), once per built schedule
+	private int[] queueStartTime;
+	private int[] queueEndTime;
+	private boolean summarized;
+	private int latency;
+	private int cost;
+
+	private int numQueues;
+	private int numScheduled;
+	private int numBuilt;
+
+	public ScheduleState(TaskGraph graph) {
+		this.graph = graph;
+
+		int n = graph.size();
+		queueOf = new int[n];
+		Arrays.fill(queueOf, -1);
+		timeline = new ScheduleTimeline(n);
+		order = new int[n];
+
+		queueOffsets = new int[17];
+		machineTypes = new MachineType[16];
+		queueStartTime = new int[16];
+		queueEndTime = new int[16];
+	}
+
+	public TaskGraph getGraph() {
+		return graph;
+	}
+
+	public ScheduleTimeline getTimeline() {
+		return timeline;
+	}
+
+	/**
+	 * Loads the given queues, leaving every task unbuilt.
+	 */
+	public void load(List<TaskQueue> tqs) {
+		clear();
+
+		for (TaskQueue tq : tqs) {
+			int queue = openQueue(tq.getMachineType());
+
+			List<Task> tasks = tq.getTasks();
+			for (int i = 0; i < tasks.size(); i++)
+				append(queue, graph.indexOf(tasks.get(i)));
+		}
+
+		closeQueues();
+	}
+
+	/**
+	 * Loads a schedule that cuts a list of tasks into contiguous queues, all
+	 * on the same machine type, leaving every task unbuilt.
+	 * @param tasks the tasks, in queue order
+	 * @param separatorAfter true for each position i that ends a queue
+	 * @param mt the machine type of every queue
+	 */
+	public void loadPartitions(List<Task> tasks, IntPredicate separatorAfter, MachineType mt) {
+		clear();
+
+		int queue = openQueue(mt);
+		for (int i = 0; i < tasks.size(); i++) {
+			append(queue, graph.indexOf(tasks.get(i)));
+			if (separatorAfter.test(i) && i != tasks.size() - 1)
+				queue = openQueue(mt);
+		}
+
+		closeQueues();
+	}
+
+	private void clear() {
+		for (int i = 0; i < numScheduled; i++)
+			queueOf[order[i]] = -1;
+
+		timeline.reset();
+		summarized = false;
+		numQueues = 0;
+		numScheduled = 0;
+		numBuilt = 0;
+	}
+
+	private int openQueue(MachineType mt) {
+		if (numQueues == machineTypes.length) {
+			machineTypes = Arrays.copyOf(machineTypes, numQueues * 2);
+			queueOffsets = Arrays.copyOf(queueOffsets, numQueues * 2 + 1);
+			queueStartTime = new int[numQueues * 2];
+			queueEndTime = new int[numQueues * 2];
+		}
+
+		machineTypes[numQueues] = mt;
+		queueOffsets[numQueues] = numScheduled;
+		return numQueues++;
+	}
+
+	private void append(int queue, int idx) {
+		if (queueOf[idx] != -1)
+			throw new DAGException("Task " + graph.getTask(idx) + " appears in more than one task queue!");
+
+		queueOf[idx] = queue;
+		order[numScheduled++] = idx;
+	}
+
+	private void closeQueues() {
+		queueOffsets[numQueues] = numScheduled;
+	}
+
+	void markBuilt(int idx, int myStart, int myEnd, int myNetworkingStart) {
+		timeline.set(idx, myStart, myEnd, myNetworkingStart);
+		numBuilt++;
+	}
+
+	public int getQueueCount() {
+		return numQueues;
+	}
+
+	public int getScheduledCount() {
+		return numScheduled;
+	}
+
+	public int getQueueOf(int idx) {
+		return queueOf[idx];
+	}
+
+	public MachineType getMachineType(int queue) {
+		return machineTypes[queue];
+	}
+
+	public int queueStart(int queue) {
+		return queueOffsets[queue];
+	}
+
+	public int queueEnd(int queue) {
+		return queueOffsets[queue + 1];
+	}
+
+	public int taskAt(int pos) {
+		return order[pos];
+	}
+
+	public boolean isBuilt(int idx) {
+		return timeline.isTimed(idx);
+	}
+
+	public boolean isFullyBuilt() {
+		return numBuilt == numScheduled;
+	}
+
+	public int getStart(int idx) {
+		return timeline.getStart(idx);
+	}
+
+	public int getEnd(int idx) {
+		return timeline.getEnd(idx);
+	}
+
+	public int getNetworkingStart(int idx) {
+		return timeline.getNetworkingStart(idx);
+	}
+
+	/**
+	 * The latency of the built schedule, as {@link CostAnalyzer#getLatency} would report it.
+	 */
+	public int getLatency() {
+		summarize();
+		return latency;
+	}
+
+	/**
+	 * The cost of the built schedule, as {@link CostAnalyzer#findCostOfBuiltTasks} would report it.
+	 */
+	public int getCost() {
+		summarize();
+		return cost;
+	}
+
+	public int getQueueStartTime(int queue) {
+		summarize();
+		return queueStartTime[queue];
+	}
+
+	public int getQueueEndTime(int queue) {
+		summarize();
+		return queueEndTime[queue];
+	}
+
+	// one pass over the queues for their start and end times, the latency and the cost
+	private void summarize() {
+		if (summarized)
+			return;
+
+		if (!isFullyBuilt())
+			throw new DAGException("TaskQueues have unbuilt tasks!");
+
+		latency = Integer.MIN_VALUE;
+		cost = 0;
+		for (int q = 0; q < numQueues; q++) {
+			if (queueOffsets[q] == queueOffsets[q + 1])
+				continue;
+
+			// the last task ends a queue, but a task can end before it starts (a
+			// negative latency), so the queue starts with its earliest task
+			int start = Integer.MAX_VALUE;
+			for (int pos = queueOffsets[q]; pos < queueOffsets[q + 1]; pos++)
+				start = Math.min(start, timeline.getStart(order[pos]));
+
+			queueStartTime[q] = start;
+			queueEndTime[q] = timeline.getEnd(order[queueOffsets[q + 1] - 1]);
+
+			latency = Math.max(latency, queueEndTime[q] + 60);
+			cost += (queueEndTime[q] - queueStartTime[q]) * machineTypes[q].getCost();
+		}
+
+		summarized = true;
+	}
+}
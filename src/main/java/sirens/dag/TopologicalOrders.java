@@ -0,0 +1,168 @@
+package sirens.dag;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+import sirens.models.Task;
+import sirens.models.TaskGraph;
+
+/**
+ * Topological orders of a task graph, found with Kahn's algorithm on
+ * in-degree counters: O(V + E) for the plain orders, and O(V + E log V) for
+ * orders that break ties by priority.
+ *
+ * Orders are arrays of task indices in the graph (see {@link TaskGraph#indexOf(Task)}).
+ * The plain forward and reverse orders are computed once per graph and
+ * shared (see {@link TaskGraph#computeIfAbsent}), so callers must not
+ * modify them.
+ */
+public final class TopologicalOrders {
+	private final TaskGraph graph;
+	private volatile int[] forward;
+	private volatile int[] reverse;
+
+	private TopologicalOrders(TaskGraph graph) {
+		this.graph = graph;
+	}
+
+	public static TopologicalOrders of(TaskGraph graph) {
+		return graph.computeIfAbsent(TopologicalOrders.class, TopologicalOrders::new);
+	}
+
+	public static TopologicalOrders of(Collection<Task> tasks) {
+		return of(TaskGraph.of(tasks));
+	}
+
+	public TaskGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Every task after all of its dependencies. Sources come first, in index
+	 * order, and every other task in the order it became ready.
+	 */
+	public int[] forward() {
+		int[] toR = forward;
+		if (toR == null) {
+			toR = kahn(false);
+			forward = toR;
+		}
+
+		return toR;
+	}
+
+	/**
+	 * Every task after all of its dependents (a topological order of the
+	 * graph with its edges flipped). Sinks come first, in index order, and
+	 * every other task in the order it became ready.
+	 */
+	public int[] reverse() {
+		int[] toR = reverse;
+		if (toR == null) {
+			toR = kahn(true);
+			reverse = toR;
+		}
+
+		return toR;
+	}
+
+	public List<Task> forwardTasks() {
+		return toTasks(forward());
+	}
+
+	public List<Task> reverseTasks() {
+		return toTasks(reverse());
+	}
+
+	/**
+	 * A forward order that, among the tasks ready at each point, always takes
+	 * the one with the lowest priority (then the lowest index). Not cached.
+	 * @param priority the priority of each task index
+	 */
+	public int[] byPriority(IntUnaryOperator priority) {
+		int n = graph.size();
+		return byPriority(priority, new int[n], new LongMaxHeap(n), new int[n]);
+	}
+
+	/**
+	 * Like {@link #byPriority(IntUnaryOperator)}, but in the caller's scratch
+	 * space, so that repeated orders allocate nothing.
+	 * @param pending room for a counter per task
+	 * @param ready a heap with room for every task
+	 * @param toR where the order goes, and what is returned
+	 */
+	public int[] byPriority(IntUnaryOperator priority, int[] pending, LongMaxHeap ready, int[] toR) {
+		int n = graph.size();
+		ready.clear();
+
+		// the heap gives the largest first, so store keys complemented
+		for (int i = 0; i < n; i++) {
+			pending[i] = graph.inDegree(i);
+			if (pending[i] == 0)
+				ready.add(~pack(priority.applyAsInt(i), i));
+		}
+
+		int count = 0;
+		while (!ready.isEmpty()) {
+			int t = (int) ~ready.poll();
+			toR[count++] = t;
+
+			for (int k = graph.childrenStart(t); k < graph.childrenEnd(t); k++) {
+				int c = graph.childAt(k);
+				if (--pending[c] == 0)
+					ready.add(~pack(priority.applyAsInt(c), c));
+			}
+		}
+
+		if (count != n)
+			throw new DAGException("DAG has cycles!");
+
+		return toR;
+	}
+
+	// sorts by priority, then index; priorities may be negative
+	private static long pack(int priority, int idx) {
+		return ((long) priority << 32) | idx;
+	}
+
+	private int[] kahn(boolean flipped) {
+		int n = graph.size();
+		int[] pending = new int[n];
+
+		// a FIFO over toR itself: toR[head..tail) is ready but not yet expanded
+		int[] toR = new int[n];
+		int tail = 0;
+		for (int i = 0; i < n; i++) {
+			pending[i] = (flipped ? graph.outDegree(i) : graph.inDegree(i));
+			if (pending[i] == 0)
+				toR[tail++] = i;
+		}
+
+		for (int head = 0; head < tail; head++) {
+			int t = toR[head];
+			int start = (flipped ? graph.parentsStart(t) : graph.childrenStart(t));
+			int end = (flipped ? graph.parentsEnd(t) : graph.childrenEnd(t));
+
+			for (int k = start; k < end; k++) {
+				int next = (flipped ? graph.parentAt(k) : graph.childAt(k));
+				if (--pending[next] == 0)
+					toR[tail++] = next;
+			}
+		}
+
+		if (tail != n)
+			throw new DAGException("DAG has cycles!");
+
+		return toR;
+	}
+
+	private List<Task> toTasks(int[] order) {
+		List<Task> toR = new ArrayList<>(order.length);
+		for (int idx : order)
+			toR.add(graph.getTask(idx));
+
+		return toR;
+	}
+}
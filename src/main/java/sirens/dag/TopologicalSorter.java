@@ -4,6 +4,7 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 import sirens.models.Task;
+import sirens.models.TaskGraph;
 import sirens.models.states.MachineType;
 
 import info.rmarcus.ggen4j.GGen;
@@ -39,8 +40,12 @@ public class TopologicalSorter {
             }
         }
 
-        return sortedTaskGraph.stream()
+        List<Task> sorted = sortedTaskGraph.stream()
                 .sorted(Comparator.comparingLong(Task::getID))
                 .collect(Collectors.toList());
+
+        // freeze the tasks into a compact graph, so that task indices match IDs
+        TaskGraph.of(sorted);
+        return sorted;
     }
 }
@@ -3,6 +3,7 @@ package sirens.experiments
 import java.util
 
 import info.rmarcus.dag.cca.CCAScheduler
+import info.rmarcus.javautil.ExecutionPolicy
 import sirens.models.Task
 import sirens.dag.CostAnalyzer
 import sirens.dag.Actualizer
@@ -18,7 +19,18 @@ object ExperimentRunner {
                 machineType: MachineType,
                 networkingBounds: NetworkingBounds,
                 latencyBounds: LatencyBounds): List[ExperimentResult] = {
-    graphs.asScala.toList.map { graph =>
+    runSeries(scheduler, graphs, machineType, networkingBounds, latencyBounds, ExecutionPolicy.sequential())
+  }
+
+  // Each graph is scheduled independently, so the policy can run several at once.
+  // The scheduler must not keep state between calls.
+  def runSeries(scheduler: UnboundedScheduler,
+                graphs: util.List[util.List[Task]],
+                machineType: MachineType,
+                networkingBounds: NetworkingBounds,
+                latencyBounds: LatencyBounds,
+                policy: ExecutionPolicy): List[ExperimentResult] = {
+    policy.map[util.List[Task], ExperimentResult](graphs, (graph: util.List[Task]) =>
       runExperiment(
         scheduler = scheduler,
         numberOfNodes = graph.size,
@@ -27,7 +39,7 @@ object ExperimentRunner {
         networkingBounds = networkingBounds,
         latencyBounds = latencyBounds
       )
-    }
+    ).asScala.toList
   }
 
   // Make this run a generic graph
@@ -37,7 +49,17 @@ object ExperimentRunner {
                 machineType: MachineType,
                 networkingBounds: NetworkingBounds,
                 latencyBounds: LatencyBounds): List[ExperimentResult] = {
-    graphs.asScala.toList.map { graph =>
+    runSeries(scheduler, numberOfQueues, graphs, machineType, networkingBounds, latencyBounds, ExecutionPolicy.sequential())
+  }
+
+  def runSeries(scheduler: BoundedScheduler,
+                numberOfQueues: Int,
+                graphs: util.List[util.List[Task]],
+                machineType: MachineType,
+                networkingBounds: NetworkingBounds,
+                latencyBounds: LatencyBounds,
+                policy: ExecutionPolicy): List[ExperimentResult] = {
+    policy.map[util.List[Task], ExperimentResult](graphs, (graph: util.List[Task]) =>
       runExperiment(
         scheduler = scheduler,
         numberOfQueues = numberOfQueues,
@@ -47,7 +69,7 @@ object ExperimentRunner {
         networkingBounds = networkingBounds,
         latencyBounds = latencyBounds
       )
-    }
+    ).asScala.toList
   }
 
   def runExperiment(scheduler: UnboundedScheduler,
@@ -0,0 +1,72 @@
+package sirens.models;
+
+import java.util.Arrays;
+
+/**
+ * Start, networking start and end times for every task of a task graph, kept
+ * in primitive arrays indexed by task. A timeline is meant to be reused across
+ * evaluations: instead of unbuilding every task, {@link #reset()} bumps an
+ * epoch counter, and a task only counts as timed if it was set during the
+ * current epoch.
+ */
+public class ScheduleTimeline {
+	private final int[] start;
+	private final int[] networkingStart;
+	private final int[] end;
+
+	// the epoch in which each task was last timed
+	private final int[] timedIn;
+	private int epoch;
+
+	public ScheduleTimeline(int size) {
+		start = new int[size];
+		networkingStart = new int[size];
+		end = new int[size];
+		timedIn = new int[size];
+		epoch = 1;
+	}
+
+	public int size() {
+		return start.length;
+	}
+
+	/**
+	 * Forgets every time in O(1).
+	 */
+	public void reset() {
+		if (epoch == Integer.MAX_VALUE) {
+			// only reached after ~2^31 resets, but stale stamps must never match again
+			Arrays.fill(timedIn, 0);
+			epoch = 0;
+		}
+
+		epoch++;
+	}
+
+	public void set(int idx, int myStart, int myEnd, int myNetworkingStart) {
+		start[idx] = myStart;
+		end[idx] = myEnd;
+		networkingStart[idx] = myNetworkingStart;
+		timedIn[idx] = epoch;
+	}
+
+	public boolean isTimed(int idx) {
+		return timedIn[idx] == epoch;
+	}
+
+	public int getStart(int idx) {
+		return start[idx];
+	}
+
+	public int getEnd(int idx) {
+		return end[idx];
+	}
+
+	public int getNetworkingStart(int idx) {
+		return networkingStart[idx];
+	}
+
+	public StartEndTime getStartEndTime(int idx) {
+		return new StartEndTime(start[idx], end[idx], networkingStart[idx]);
+	}
+}
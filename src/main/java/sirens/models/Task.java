@@ -2,7 +2,6 @@ package sirens.models;
 
 import java.util.*;
 import java.util.Map.Entry;
-import java.util.stream.Collectors;
 
 import sirens.dag.DAGException;
 import sirens.models.states.BuildStatus;
@@ -12,7 +11,11 @@ public class Task implements Comparable<Task> {
 	private Integer id;
 
 	private BuildStatus buildStatus;
-	private Optional<StartEndTime> startEndTime;
+
+	// only meaningful while built; kept as ints so building does not allocate
+	private int startTime;
+	private int endTime;
+	private int networkingStartTime;
 
 	private Map<Task, Integer> dependencies;
 	private Map<Task, Integer> dependents;
@@ -20,10 +23,14 @@ public class Task implements Comparable<Task> {
 	private Map<MachineType, Integer> latencies;
 	private TaskQueue tq;
 
+	// once a task is frozen into a TaskGraph, the maps above are released
+	// and neighbour queries are answered from the graph's arrays.
+	private TaskGraph graph;
+	private int index = -1;
+
 	public Task(Integer id, TaskQueue tq, Map<MachineType, Integer> latencies) {
 		this.id = id;
 		this.buildStatus = BuildStatus.NOT_BUILT;
-		this.startEndTime = Optional.empty();
 		this.dependencies = new HashMap<>();
 		this.dependents = new HashMap<>();
 		this.latencies = latencies;
@@ -33,7 +40,6 @@ public class Task implements Comparable<Task> {
 	public Task(Integer id, Map<MachineType, Integer> latencies) {
 		this.id = id;
 		this.buildStatus = BuildStatus.NOT_BUILT;
-		this.startEndTime = Optional.empty();
 		this.dependencies = new HashMap<>();
 		this.dependents = new HashMap<>();
 		this.latencies = latencies;
@@ -43,6 +49,9 @@ public class Task implements Comparable<Task> {
 		if (t == null) {
 			throw new NullPointerException("Null task given as a dependency!");
 		}
+		if (graph != null || t.graph != null) {
+			throw new DAGException("Cannot add a dependency to a task that belongs to a TaskGraph!");
+		}
 		dependencies.put(t, networkCost);
 		t.addDependent(networkCost, this);
 	}
@@ -51,6 +60,22 @@ public class Task implements Comparable<Task> {
 		dependents.put(t, networkCost);
 	}
 
+	void attach(TaskGraph graph, int index) {
+		this.graph = graph;
+		this.index = index;
+		this.dependencies = null;
+		this.dependents = null;
+		this.latencies = null;
+	}
+
+	public TaskGraph getGraph() {
+		return graph;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
 	public TaskQueue getTaskQueue() {
 		return tq;
 	}
@@ -60,35 +85,56 @@ public class Task implements Comparable<Task> {
 	}
 
 	public boolean isBuilt() {
-		if (buildStatus == BuildStatus.BUILT && startEndTime.isPresent())
-			return true;
-
-		if (buildStatus == BuildStatus.BUILT && !startEndTime.isPresent())
-			throw new DAGException("Invariant violated: should not be able to have a built task without a start and end time!");
-
-		return false;
+		return buildStatus == BuildStatus.BUILT;
 	}
 
 	public boolean buildable() {
-		return dependencies.keySet()
+		return getDependencies().keySet()
 				.stream()
 				.allMatch(t -> t.isBuilt());
 	}
 
 	public void unbuild() {
 		this.buildStatus = BuildStatus.NOT_BUILT;
-		this.startEndTime = Optional.empty();
+	}
+
+	/**
+	 * Records a start and end time computed outside of {@link #build()}, e.g. by
+	 * an actualization engine.
+	 */
+	public void markBuilt(StartEndTime time) {
+		markBuilt(time.getStart(), time.getEnd(), time.getNetworkingStart());
+	}
+
+	public void markBuilt(int myStart, int myEnd, int myNetworkingStart) {
+		this.startTime = myStart;
+		this.endTime = myEnd;
+		this.networkingStartTime = myNetworkingStart;
+		this.buildStatus = BuildStatus.BUILT;
 	}
 	
 	private int findLatestEndingDep() {
 		// find the latest ending dependency, or, if one of my deps
 		// hasn't been built yet, fail.
 		int maxEnd = Integer.MIN_VALUE;
+		if (graph != null) {
+			for (int k = graph.parentsStart(index); k < graph.parentsEnd(index); k++) {
+				Task dep = graph.getTask(graph.parentAt(k));
+				if (!dep.isBuilt())
+					return -1;
+
+				int theirEnd = dep.endTime;
+				maxEnd = (maxEnd < theirEnd ? theirEnd : maxEnd);
+			}
+
+			return maxEnd;
+		}
+
 		for (Task dep : this.dependencies.keySet()) {
 			if (!dep.isBuilt())
 				return -1;
 			
-			int theirEnd = dep.getStartEndTime().get().getEnd();
+			int theirEnd = dep.endTime;
 			maxEnd = (maxEnd < theirEnd ? theirEnd : maxEnd);
 		}
 
@@ -99,6 +145,15 @@ public class Task implements Comparable<Task> {
 		// figure out how much time we will need to spend doing networking...
 		// (time we will use to write our data to other VMs with our dependents)
 		int networkingTime = 0;
+		if (graph != null) {
+			for (int k = graph.childrenStart(index); k < graph.childrenEnd(index); k++) {
+				Task child = graph.getTask(graph.childAt(k));
+				networkingTime += (child.getTaskQueue() != this.getTaskQueue() ? graph.childWeightAt(k) : 0);
+			}
+
+			return networkingTime;
+		}
+
 		for (Entry<Task, Integer> e : dependents.entrySet()) {
 			networkingTime += (e.getKey().getTaskQueue() != this.getTaskQueue() ? e.getValue() : 0);
 		}
@@ -107,18 +162,34 @@ public class Task implements Comparable<Task> {
 	}
 
 	public boolean isLeaf() {
+		if (graph != null)
+			return graph.outDegree(index) == 0;
+
 		return getDependents().isEmpty();
 	}
 
 	public boolean isSource() {
+		if (graph != null)
+			return graph.inDegree(index) == 0;
+
 		return getDependencies().isEmpty();
 	}
 
 	public boolean isIndependent() {
-		return getDependencies().isEmpty() && getDependents().isEmpty();
+		return isSource() && isLeaf();
 	}
 
 	public int edgeWeight() {
+		if (graph != null) {
+			int total = 0;
+			for (int k = graph.parentsStart(index); k < graph.parentsEnd(index); k++)
+				total += graph.parentWeightAt(k);
+			for (int k = graph.childrenStart(index); k < graph.childrenEnd(index); k++)
+				total += graph.childWeightAt(k);
+
+			return total;
+		}
+
 		int inbound = getDependencies()
 				.values()
 				.stream()
@@ -135,17 +206,28 @@ public class Task implements Comparable<Task> {
 	}
 
 	public Optional<StartEndTime> build() {
-		if (tq == null)
+		if (!tryBuild())
 			return Optional.empty();
+
+		return getStartEndTime();
+	}
+
+	/**
+	 * Like {@link #build()}, but reports success as a boolean instead of
+	 * allocating a start and end time.
+	 */
+	public boolean tryBuild() {
+		if (tq == null)
+			return false;
 		
 		if (isBuilt())
-			return startEndTime;
+			return true;
 
 		
 		// find the latest ending dependency
 		int latestDep = findLatestEndingDep();
 		if (latestDep == -1)
-			return Optional.empty();
+			return false;
 		
 
 		// find the latest starting task on my machine currently
@@ -155,19 +237,23 @@ public class Task implements Comparable<Task> {
 		int networkingTime = calculateNetworkingTime();
 		
 		int myStart = Math.max(latestStart, latestDep);
-		int myEnd = myStart + latencies.get(tq.getMachineType()) + networkingTime;
-
-		this.startEndTime = Optional.of(new StartEndTime(myStart, myEnd, myEnd - networkingTime));
-		this.buildStatus = BuildStatus.BUILT;
+		int myEnd = myStart + getLatency(tq.getMachineType()) + networkingTime;
 
-		return startEndTime;
+		markBuilt(myStart, myEnd, myEnd - networkingTime);
+		return true;
 	}
 
 	public Map<Task, Integer> getDependencies() {
+		if (graph != null)
+			return new NeighbourView(true);
+
 		return dependencies;
 	}
 
 	public Map<Task, Integer> getDependents() {
+		if (graph != null)
+			return new NeighbourView(false);
+
 		return dependents;
 	}
 
@@ -176,12 +262,38 @@ public class Task implements Comparable<Task> {
 	}
 
 	public Optional<StartEndTime> getStartEndTime() {
-		return startEndTime;
+		if (!isBuilt())
+			return Optional.empty();
+
+		return Optional.of(new StartEndTime(startTime, endTime, networkingStartTime));
+	}
+
+	/**
+	 * The start time of this task, without allocating a {@link StartEndTime}.
+	 * @throws DAGException if the task is not built
+	 */
+	public int getStartTime() {
+		checkBuilt();
+		return startTime;
+	}
+
+	/**
+	 * The end time of this task, without allocating a {@link StartEndTime}.
+	 * @throws DAGException if the task is not built
+	 */
+	public int getEndTime() {
+		checkBuilt();
+		return endTime;
+	}
+
+	private void checkBuilt() {
+		if (!isBuilt())
+			throw new DAGException("Task " + id + " is not built.");
 	}
 
 	public Integer countDependents() {
-		if (dependents.isEmpty()) return 0;
-		return dependents.keySet().stream().mapToInt(Task::countDependents).sum();
+		if (isLeaf()) return 0;
+		return getDependents().keySet().stream().mapToInt(Task::countDependents).sum();
 	}
 
 	@Override
@@ -204,14 +316,14 @@ public class Task implements Comparable<Task> {
 
 	@Override
 	public int compareTo(Task that) {
-	    if (!this.startEndTime.isPresent() || !that.startEndTime.isPresent())
+	    if (!this.isBuilt() || !that.isBuilt())
 	    	throw new DAGException("Tasks have not been built; there is no logical way to compare them.");
 
-		if (this.startEndTime.get().getEnd() <= that.startEndTime.get().getStart() &&
-				this.startEndTime.get().getStart() < this.startEndTime.get().getStart()) {
+		if (this.endTime <= that.startTime &&
+				this.startTime < this.startTime) {
 			return -1;
-		} else if (this.startEndTime.get().getStart() >= that.startEndTime.get().getEnd() &&
-				this.startEndTime.get().getEnd() >= that.startEndTime.get().getEnd()) {
+		} else if (this.startTime >= that.endTime &&
+				this.endTime >= that.endTime) {
 			return 1;
 		} else {
 			return 0;
@@ -219,16 +331,132 @@ public class Task implements Comparable<Task> {
 	}
 	
 	public int getCostTo(Task task) {
-		return dependents.getOrDefault(task, 0) + dependencies.getOrDefault(task, 0);
+		if (graph != null && task.graph == graph)
+			return graph.getEdgeWeight(index, task.index) + graph.getEdgeWeight(task.index, index);
+
+		return getDependents().getOrDefault(task, 0) + getDependencies().getOrDefault(task, 0);
 	}
 
 	public int getID() {
 		return id;
 	}
 
+	public int getLatency(MachineType mt) {
+		if (graph != null)
+			return graph.getLatency(index, mt);
+
+		return latencies.get(mt);
+	}
+
 	public Map<MachineType, Integer> getLatencies() {
-		return latencies;
+		if (graph == null)
+			return latencies;
+
+		Map<MachineType, Integer> toR = new EnumMap<>(MachineType.class);
+		for (MachineType mt : MachineType.values()) {
+			if (graph.hasLatency(index, mt))
+				toR.put(mt, graph.getLatency(index, mt));
+		}
+
+		return toR;
 	}
 
+	/**
+	 * A read-only map over one row of the task graph's parent or child arrays.
+	 */
+	private class NeighbourView extends AbstractMap<Task, Integer> {
+		private final boolean parents;
+
+		private NeighbourView(boolean parents) {
+			this.parents = parents;
+		}
+
+		private int start() {
+			return parents ? graph.parentsStart(index) : graph.childrenStart(index);
+		}
+
+		private int end() {
+			return parents ? graph.parentsEnd(index) : graph.childrenEnd(index);
+		}
+
+		private int neighbourAt(int k) {
+			return parents ? graph.parentAt(k) : graph.childAt(k);
+		}
+
+		private int weightAt(int k) {
+			return parents ? graph.parentWeightAt(k) : graph.childWeightAt(k);
+		}
+
+		private int find(Object o) {
+			if (!(o instanceof Task) || ((Task) o).graph != graph)
+				return -1;
+
+			// rows are sorted by neighbour, as in TaskGraph#getEdgeWeight
+			int target = ((Task) o).index;
+			int lo = start();
+			int hi = end() - 1;
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				int at = neighbourAt(mid);
+				if (at < target)
+					lo = mid + 1;
+				else if (at > target)
+					hi = mid - 1;
+				else
+					return mid;
+			}
+
+			return -1;
+		}
+
+		@Override
+		public int size() {
+			return end() - start();
+		}
+
+		@Override
+		public boolean containsKey(Object o) {
+			return find(o) != -1;
+		}
+
+		@Override
+		public Integer get(Object o) {
+			int k = find(o);
+			return (k == -1 ? null : weightAt(k));
+		}
+
+		@Override
+		public Set<Entry<Task, Integer>> entrySet() {
+			return new AbstractSet<Entry<Task, Integer>>() {
+				@Override
+				public int size() {
+					return NeighbourView.this.size();
+				}
+
+				@Override
+				public Iterator<Entry<Task, Integer>> iterator() {
+					return new Iterator<Entry<Task, Integer>>() {
+						private int k = start();
+
+						@Override
+						public boolean hasNext() {
+							return k < end();
+						}
+
+						@Override
+						public Entry<Task, Integer> next() {
+							if (k >= end())
+								throw new NoSuchElementException();
+
+							Entry<Task, Integer> e = new SimpleImmutableEntry<>(
+									graph.getTask(neighbourAt(k)), weightAt(k));
+							k++;
+							return e;
+						}
+					};
+				}
+			};
+		}
+	}
 
 }
@@ -0,0 +1,238 @@
+package sirens.models;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import sirens.dag.DAGException;
+import sirens.models.states.MachineType;
+
+/**
+ * An immutable, int-indexed view of a task DAG. Parents and children are stored
+ * in compressed sparse row form (an offsets array plus parallel neighbour and
+ * edge weight arrays), and latencies are stored as one primitive row per
+ * machine type. Every task belonging to the graph is attached to it, and
+ * answers its neighbour queries from these arrays.
+ *
+ * Task indices are positions in the collection the graph was built from, and
+ * are not necessarily equal to task IDs.
+ */
+public final class TaskGraph {
+	private static final int NO_LATENCY = Integer.MIN_VALUE;
+
+	private final Task[] tasks;
+
+	private final int[] parentOffsets;
+	private final int[] parents;
+	private final int[] parentWeights;
+
+	private final int[] childOffsets;
+	private final int[] children;
+	private final int[] childWeights;
+
+	// latencies[machineType.ordinal()][task index]
+	private final int[][] latencies;
+
+	// data derived from the graph, see computeIfAbsent
+	private final Map<Class<?>, Object> derived = new ConcurrentHashMap<>();
+
+	private TaskGraph(Collection<Task> toFreeze) {
+		int n = toFreeze.size();
+		tasks = toFreeze.toArray(new Task[n]);
+
+		Map<Task, Integer> index = new IdentityHashMap<>(n);
+		for (int i = 0; i < n; i++) {
+			if (index.put(tasks[i], i) != null)
+				throw new DAGException("Task " + tasks[i] + " appears twice in the task graph!");
+		}
+
+		parentOffsets = new int[n + 1];
+		childOffsets = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			parentOffsets[i + 1] = parentOffsets[i] + tasks[i].getDependencies().size();
+			childOffsets[i + 1] = childOffsets[i] + tasks[i].getDependents().size();
+		}
+
+		parents = new int[parentOffsets[n]];
+		parentWeights = new int[parentOffsets[n]];
+		children = new int[childOffsets[n]];
+		childWeights = new int[childOffsets[n]];
+
+		for (int i = 0; i < n; i++) {
+			fillRow(index, tasks[i].getDependencies(), parentOffsets[i], parents, parentWeights);
+			fillRow(index, tasks[i].getDependents(), childOffsets[i], children, childWeights);
+		}
+
+		MachineType[] types = MachineType.values();
+		latencies = new int[types.length][n];
+		for (MachineType mt : types) {
+			int[] row = latencies[mt.ordinal()];
+			for (int i = 0; i < n; i++) {
+				Integer l = tasks[i].getLatencies().get(mt);
+				row[i] = (l == null ? NO_LATENCY : l);
+			}
+		}
+
+		for (int i = 0; i < n; i++)
+			tasks[i].attach(this, i);
+	}
+
+	private static void fillRow(Map<Task, Integer> index, Map<Task, Integer> edges,
+			int offset, int[] neighbours, int[] weights) {
+		// pack (neighbour, weight) into longs so each row can be sorted by
+		// neighbour index without boxing
+		long[] packed = new long[edges.size()];
+		int k = 0;
+		for (Entry<Task, Integer> e : edges.entrySet()) {
+			Integer idx = index.get(e.getKey());
+			if (idx == null) {
+				throw new DAGException("Task " + e.getKey()
+						+ " is a neighbour of a task in the graph, but is not in the graph itself!");
+			}
+
+			packed[k++] = ((long) idx << 32) | (e.getValue() & 0xFFFFFFFFL);
+		}
+		Arrays.sort(packed);
+
+		for (int i = 0; i < packed.length; i++) {
+			neighbours[offset + i] = (int) (packed[i] >>> 32);
+			weights[offset + i] = (int) packed[i];
+		}
+	}
+
+	/**
+	 * Returns the graph that the given tasks belong to, freezing them into a
+	 * new graph if none of them have been attached to one yet.
+	 * @param tasks the tasks of the graph
+	 * @return the graph shared by the tasks
+	 */
+	public static TaskGraph of(Collection<Task> tasks) {
+		TaskGraph shared = null;
+		boolean anyUnattached = false;
+
+		for (Task t : tasks) {
+			TaskGraph g = t.getGraph();
+			if (g == null) {
+				anyUnattached = true;
+			} else if (shared == null) {
+				shared = g;
+			} else if (shared != g) {
+				throw new DAGException("Tasks belong to more than one task graph!");
+			}
+		}
+
+		if (shared == null)
+			return new TaskGraph(tasks);
+
+		if (anyUnattached)
+			throw new DAGException("Cannot mix tasks of a frozen task graph with unattached tasks!");
+
+		return shared;
+	}
+
+	public int size() {
+		return tasks.length;
+	}
+
+	public int edgeCount() {
+		return children.length;
+	}
+
+	public Task getTask(int idx) {
+		return tasks[idx];
+	}
+
+	public int indexOf(Task t) {
+		if (t.getGraph() != this)
+			throw new DAGException("Task " + t + " does not belong to this task graph!");
+
+		return t.getIndex();
+	}
+
+	public int parentsStart(int idx) {
+		return parentOffsets[idx];
+	}
+
+	public int parentsEnd(int idx) {
+		return parentOffsets[idx + 1];
+	}
+
+	public int parentAt(int k) {
+		return parents[k];
+	}
+
+	public int parentWeightAt(int k) {
+		return parentWeights[k];
+	}
+
+	public int inDegree(int idx) {
+		return parentOffsets[idx + 1] - parentOffsets[idx];
+	}
+
+	public int childrenStart(int idx) {
+		return childOffsets[idx];
+	}
+
+	public int childrenEnd(int idx) {
+		return childOffsets[idx + 1];
+	}
+
+	public int childAt(int k) {
+		return children[k];
+	}
+
+	public int childWeightAt(int k) {
+		return childWeights[k];
+	}
+
+	public int outDegree(int idx) {
+		return childOffsets[idx + 1] - childOffsets[idx];
+	}
+
+	public boolean hasLatency(int idx, MachineType mt) {
+		return latencies[mt.ordinal()][idx] != NO_LATENCY;
+	}
+
+	public int getLatency(int idx, MachineType mt) {
+		int l = latencies[mt.ordinal()][idx];
+		if (l == NO_LATENCY)
+			throw new DAGException("Task " + tasks[idx] + " has no latency for machine type " + mt);
+
+		return l;
+	}
+
+	/**
+	 * Returns the data of the given type derived from this graph, computing it
+	 * on first use. Since the graph never changes, the data can be kept with
+	 * it, and is dropped along with it.
+	 */
+	public <T> T computeIfAbsent(Class<T> type, Function<TaskGraph, T> compute) {
+		Object value = derived.get(type);
+		if (value == null) {
+			// computed outside the map, so that computing one kind of data may
+			// ask for another; two threads may both compute it, but only one wins
+			Object computed = compute.apply(this);
+			value = derived.putIfAbsent(type, computed);
+			if (value == null)
+				value = computed;
+		}
+
+		return type.cast(value);
+	}
+
+	/**
+	 * The weight of the edge from parent to child, or 0 if there is no such edge.
+	 */
+	public int getEdgeWeight(int parent, int child) {
+		int k = Arrays.binarySearch(children, childOffsets[parent], childOffsets[parent + 1], child);
+		return (k < 0 ? 0 : childWeights[k]);
+	}
+
+	public boolean hasEdge(int parent, int child) {
+		return Arrays.binarySearch(children, childOffsets[parent], childOffsets[parent + 1], child) >= 0;
+	}
+}
@@ -4,8 +4,9 @@ import sirens.dag.DAGException;
 import sirens.models.states.MachineType;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class TaskQueue {
@@ -21,17 +22,26 @@ public class TaskQueue {
 
 	public TaskQueue(MachineType machineType, List<Task> tasks) {
 		this(machineType);
-		tasks.forEach(this::add);
+
+		// one pass for duplicates, rather than one per task as add does
+		Set<Integer> ids = new HashSet<>();
+		for (Task t : tasks) {
+			if (!ids.add(t.getID()))
+				throw new DAGException("cannot add the same task to a task queue twice!");
+		}
+
+		this.tasks.addAll(tasks);
 	}
 
+	// Adding a task does not touch the task itself, so that candidate schedules
+	// over the same tasks can be put together (and scored) side by side. Tasks
+	// are pointed at their queue when the schedule is actualized.
 	public void add(Task task) {
 		if (this.hasTask(task)) {
 			throw new DAGException("cannot add the same task to a task queue twice!");
 		}
 
-		task.unbuild();
 		this.tasks.add(task);
-		task.setTaskQueue(this);
 		this.nextUnbuilt = 0;
 	}
 
@@ -39,27 +49,32 @@ public class TaskQueue {
 		if (nextUnbuilt == 0)
 			return 0;
 
-		return tasks.get(nextUnbuilt-1).getStartEndTime().get().getEnd();
+		return tasks.get(nextUnbuilt-1).getEndTime();
 	}
 
 	public int getStartTime() {
-		return tasks.stream()
-				.filter(Task::isBuilt)
-				.mapToInt(t -> t.getStartEndTime().get().getStart())
-				.min()
-				.orElseThrow(() -> new RuntimeException("No tasks, cannot get start time!"));
+		int min = Integer.MAX_VALUE;
+		boolean found = false;
+		for (int i = 0; i < tasks.size(); i++) {
+			Task t = tasks.get(i);
+			if (t.isBuilt()) {
+				min = Math.min(min, t.getStartTime());
+				found = true;
+			}
+		}
+
+		if (!found)
+			throw new RuntimeException("No tasks, cannot get start time!");
+
+		return min;
 	}
 
 	public int getEndTime() {
-		Optional<StartEndTime> startEndTime =
-				tasks.get(tasks.size() - 1).getStartEndTime();
-
-		if (!startEndTime.isPresent()) {
-			Task unbuilt = tasks.get(tasks.size() -1);
-			throw new RuntimeException("Task " + unbuilt + " is not built.");
-		}
+		Task last = tasks.get(tasks.size() - 1);
+		if (!last.isBuilt())
+			throw new RuntimeException("Task " + last + " is not built.");
 
-		return startEndTime.get().getEnd();
+		return last.getEndTime();
 	}
 
 	public MachineType getMachineType() {
@@ -71,7 +86,7 @@ public class TaskQueue {
 	}
 
 	public boolean buildNextUnbuiltTask() {
-		if (nextUnbuilt < tasks.size() && tasks.get(nextUnbuilt).build().isPresent()) {
+		if (nextUnbuilt < tasks.size() && tasks.get(nextUnbuilt).tryBuild()) {
 			nextUnbuilt++;
 			return true;
 		}
@@ -79,6 +94,14 @@ public class TaskQueue {
 		return false;
 	}
 
+	/**
+	 * Marks every task in this queue as built. The tasks themselves must already
+	 * have been given start and end times.
+	 */
+	public void markAllBuilt() {
+		nextUnbuilt = tasks.size();
+	}
+
 	public void unbuildAll() {
 		for (Task t : tasks) {
 			t.unbuild();
@@ -1,66 +1,330 @@
 package sirens.schedulers
+
 import java.util
 
-import sirens.models.{Task, TaskQueue}
+import sirens.dag.{LongMaxHeap, TopologicalOrders}
+import sirens.models.{Task, TaskGraph, TaskQueue}
 import sirens.models.states.MachineType
-import sirens.typeclasses.TaskExtension._
 
-import info.rmarcus.dynamic_critical_path.{DynamicCriticalPath => DCP}
+// Dynamic Critical Path (Kwok and Ahmad): repeatedly place the ready task with
+// the least mobility, either after one of its parents on that parent's
+// machine or on a new machine, wherever it and its critical child can start
+// earliest. Mobility is ALST - AEST, and since ALST is the length of the
+// dynamic critical path less the task's b-level, the least mobile task is the
+// one with the largest AEST + b-level.
+//
+// Times follow the Actualizer: a task starts once the task before it on its
+// machine and all of its parents have ended, and runs for its latency plus
+// the time it takes to send its output to children on other machines. Tasks
+// not placed yet count as being on machines of their own.
+class DynamicCriticalPath extends UnboundedScheduler {
+  override def generateSchedule(graph: util.List[Task],
+                                machineType: MachineType): util.List[TaskQueue] = {
+    val placement = new Placement(TaskGraph.of(graph), machineType)
+    while (placement.placeNext()) {}
+
+    placement.toTaskQueues
+  }
+
+  override def toString: String = {
+    "DynamicCriticalPath"
+  }
+}
+
+// The partial schedule, with every task's AEST and b-level kept up to date as
+// tasks are placed. A placement only moves the tasks after it (for AESTs) and
+// before it (for b-levels), so those are re-derived in position order,
+// stopping wherever nothing changed.
+private final class Placement(graph: TaskGraph, machineType: MachineType) {
+  private val n = graph.size
+  private val NEW_MACHINE = -1
+
+  // per task
+  private val duration = new Array[Int](n)
+  private val aest = new Array[Int](n)
+  private val bLevel = new Array[Int](n)
+  private val machineOf = Array.fill(n)(-1)
+  private val prev = Array.fill(n)(-1)
+  private val next = Array.fill(n)(-1)
+  private val pendingParents = new Array[Int](n)
+
+  // placed tasks in the order they were placed, then the rest in topological
+  // order; a topological order of the dependencies and queue order together
+  private val position = new Array[Int](n)
+  private var numPlaced = 0
 
-import collection.JavaConverters._
+  // per machine
+  private val first = new Array[Int](n)
+  private val last = new Array[Int](n)
+  private var numMachines = 0
 
-object DynamicCriticalPath {
+  // tasks whose parents are all placed
+  private val ready = new Array[Int](n)
+  private var numReady = 0
 
-  type Edges = Map[Task, Map[Task, Int]]
-  type Weights = Map[Task, Int]
+  // scratch space for re-deriving times, forward (AESTs) and backward (b-levels)
+  private val forwardQueued = new Array[Boolean](n)
+  private val forwardForced = new Array[Boolean](n)
+  private val forward = new LongMaxHeap(n)
+  private val backwardQueued = new Array[Boolean](n)
+  private val backwardForced = new Array[Boolean](n)
+  private val backward = new LongMaxHeap(n)
+  private val candidateStamp = new Array[Int](n + 1)
+  private var candidateEpoch = 0
 
-  def generateSchedule(graph: util.List[Task], machineType: MachineType): Unit = {
-    val (edges, weights) = transform(graph, machineType = MachineType.SMALL)
-    val (stringyEdges, stringyWeights) = asJavaMaps(edges, weights)
+  init()
 
-    DCP.schedule(stringyEdges, stringyWeights)
+  private def init(): Unit = {
+    val orders = TopologicalOrders.of(graph)
+    val order = orders.forward()
+    for (i <- 0 until n)
+      position(order(i)) = n + i
+
+    // every child is on another machine to start with
+    for (t <- 0 until n) {
+      duration(t) = graph.getLatency(t, machineType)
+      for (k <- graph.childrenStart(t) until graph.childrenEnd(t))
+        duration(t) += graph.childWeightAt(k)
+
+      pendingParents(t) = graph.inDegree(t)
+      if (pendingParents(t) == 0) {
+        ready(numReady) = t
+        numReady += 1
+      }
+    }
+
+    order.foreach(t => aest(t) = computeAEST(t))
+    orders.reverse().foreach(t => bLevel(t) = computeBLevel(t))
   }
 
-  def transform(graph: util.Collection[Task], machineType: MachineType): (Edges, Weights) = {
-    val immutableGraph = graph.asScala.toList
+  /**
+   * Places the least mobile ready task.
+   * @return false if every task has been placed
+   */
+  def placeNext(): Boolean = {
+    if (numReady == 0)
+      return false
+
+    var chosen = 0
+    for (i <- 1 until numReady) {
+      val t = ready(i)
+      val c = ready(chosen)
+      val key = aest(t) + bLevel(t)
+      val chosenKey = aest(c) + bLevel(c)
+      if (key > chosenKey || (key == chosenKey && (aest(t) < aest(c) || (aest(t) == aest(c) && t < c))))
+        chosen = i
+    }
+
+    val task = ready(chosen)
+    numReady -= 1
+    ready(chosen) = ready(numReady)
+
+    place(task, chooseMachine(task))
+    true
+  }
 
-    def nodeEdges(as: List[Task]): Edges = {
-      as.foldLeft(Map[Task, Map[Task, Int]]()) { (map, task) =>
-        map + (task -> task.getNeighbors)
+  def toTaskQueues: util.List[TaskQueue] = {
+    val toR = new util.ArrayList[TaskQueue](numMachines)
+    for (m <- 0 until numMachines) {
+      val tq = new TaskQueue(machineType)
+      var t = first(m)
+      while (t != -1) {
+        tq.add(graph.getTask(t))
+        t = next(t)
       }
+      toR.add(tq)
     }
 
-    def nodeWeights(as: List[Task]): Weights = {
-      as.map { task =>
-          (task, (task.getLatencies.get(machineType)))
-        }
-        .foldLeft(Map[Task, Int]()) { (map, pair) =>
-          val (task, weight) = pair
-          map + (task -> weight)
+    toR
+  }
+
+  // the machine of a parent, or a new one, where the task and its critical child start earliest
+  private def chooseMachine(task: Int): Int = {
+    var criticalChild = -1
+    for (k <- graph.childrenStart(task) until graph.childrenEnd(task)) {
+      val c = graph.childAt(k)
+      if (criticalChild == -1 || bLevel(c) > bLevel(criticalChild))
+        criticalChild = c
+    }
+
+    candidateEpoch += 1
+    var best = NEW_MACHINE
+    var bestStart = startOn(task, NEW_MACHINE)
+    var bestScore = bestStart + childStartOn(criticalChild, task, NEW_MACHINE, bestStart)
+
+    for (k <- graph.parentsStart(task) until graph.parentsEnd(task)) {
+      val m = machineOf(graph.parentAt(k))
+      if (candidateStamp(m) != candidateEpoch) {
+        candidateStamp(m) = candidateEpoch
+
+        val start = startOn(task, m)
+        val score = start + childStartOn(criticalChild, task, m, start)
+        if (score < bestScore || (score == bestScore && (best == NEW_MACHINE || start < bestStart))) {
+          best = m
+          bestStart = start
+          bestScore = score
         }
+      }
     }
 
-    (nodeEdges(immutableGraph), nodeWeights(immutableGraph))
+    best
   }
 
-  def asJavaMaps(edges: Edges, weights: Weights)
-    : (util.Map[String, Integer], util.Map[String, util.Map[String, Integer]]) = {
+  // when the task could start at the end of machine m, where parents no longer send it their output
+  private def startOn(task: Int, m: Int): Int = {
+    var machineFree = if (m == NEW_MACHINE) 0 else end(last(m))
+    var start = 0
+    for (k <- graph.parentsStart(task) until graph.parentsEnd(task)) {
+      val p = graph.parentAt(k)
+      val parentEnd = end(p) - (if (m != NEW_MACHINE && machineOf(p) == m) graph.parentWeightAt(k) else 0)
+      if (m != NEW_MACHINE && p == last(m))
+        machineFree = parentEnd
 
-    def edgesToString(edges: Edges): util.Map[String, util.Map[String, Integer]] = {
-      edges.map { pair: (Task, Map[Task, Int]) =>
-        val (task, map) = pair
-        (task.toString, map.map { pair: (Task, Int) =>
-          (pair._1.toString, new Integer(pair._2))
-        }.asJava)
-      }.asJava
+      start = math.max(start, parentEnd)
     }
 
-    def weightsToString(weights: Weights): util.Map[String, Integer] = {
-      weights.map { pair: (Task, Int) =>
-        (pair._1.toString, new Integer(pair._2))
-      }.asJava
+    math.max(start, machineFree)
+  }
+
+  // when the child could start right after the task on machine m
+  private def childStartOn(child: Int, task: Int, m: Int, taskStart: Int): Int = {
+    if (child == -1)
+      return 0
+
+    var start = 0
+    for (k <- graph.parentsStart(child) until graph.parentsEnd(child)) {
+      val p = graph.parentAt(k)
+      val parentEnd =
+        if (p == task) taskStart + duration(task) - graph.parentWeightAt(k)
+        else end(p) - (if (m != NEW_MACHINE && machineOf(p) == m) graph.parentWeightAt(k) else 0)
+
+      start = math.max(start, parentEnd)
     }
 
-    (weightsToString(weights), edgesToString(edges))
+    start
+  }
+
+  private def place(task: Int, machine: Int): Unit = {
+    val m = if (machine != NEW_MACHINE) machine else {
+      first(numMachines) = task
+      last(numMachines) = -1
+      numMachines += 1
+      numMachines - 1
+    }
+
+    machineOf(task) = m
+    position(task) = numPlaced
+    numPlaced += 1
+
+    val before = last(m)
+    prev(task) = before
+    if (before != -1)
+      next(before) = task
+    last(m) = task
+
+    // parents on the same machine no longer send to the task, so they end sooner
+    for (k <- graph.parentsStart(task) until graph.parentsEnd(task)) {
+      val p = graph.parentAt(k)
+      if (machineOf(p) == m) {
+        duration(p) -= graph.parentWeightAt(k)
+        forceForward(p)
+        forceBackward(p)
+      }
+    }
+
+    // the task now waits for the one before it, which now waits for the task
+    forceForward(task)
+    if (before != -1)
+      forceBackward(before)
+
+    propagateAEST()
+    propagateBLevel()
+
+    for (k <- graph.childrenStart(task) until graph.childrenEnd(task)) {
+      val c = graph.childAt(k)
+      pendingParents(c) -= 1
+      if (pendingParents(c) == 0) {
+        ready(numReady) = c
+        numReady += 1
+      }
+    }
+  }
+
+  private def end(t: Int): Int = aest(t) + duration(t)
+
+  private def computeAEST(t: Int): Int = {
+    var start = if (prev(t) == -1) 0 else end(prev(t))
+    for (k <- graph.parentsStart(t) until graph.parentsEnd(t))
+      start = math.max(start, end(graph.parentAt(k)))
+
+    start
+  }
+
+  private def computeBLevel(t: Int): Int = {
+    var below = if (next(t) == -1) 0 else bLevel(next(t))
+    for (k <- graph.childrenStart(t) until graph.childrenEnd(t))
+      below = math.max(below, bLevel(graph.childAt(k)))
+
+    duration(t) + below
+  }
+
+  // AESTs are re-derived earliest position first
+  private def forceForward(t: Int): Unit = {
+    forwardForced(t) = true
+    enqueueForward(t)
+  }
+
+  private def enqueueForward(t: Int): Unit = {
+    if (!forwardQueued(t)) {
+      forwardQueued(t) = true
+      forward.add((Int.MaxValue - position(t)).toLong << 32 | t)
+    }
+  }
+
+  private def propagateAEST(): Unit = {
+    while (!forward.isEmpty) {
+      val t = forward.poll().toInt
+      forwardQueued(t) = false
+
+      val updated = computeAEST(t)
+      if (updated != aest(t) || forwardForced(t)) {
+        aest(t) = updated
+        for (k <- graph.childrenStart(t) until graph.childrenEnd(t))
+          enqueueForward(graph.childAt(k))
+        if (next(t) != -1)
+          enqueueForward(next(t))
+      }
+      forwardForced(t) = false
+    }
+  }
+
+  // b-levels are re-derived latest position first
+  private def forceBackward(t: Int): Unit = {
+    backwardForced(t) = true
+    enqueueBackward(t)
+  }
+
+  private def enqueueBackward(t: Int): Unit = {
+    if (!backwardQueued(t)) {
+      backwardQueued(t) = true
+      backward.add(position(t).toLong << 32 | t)
+    }
+  }
+
+  private def propagateBLevel(): Unit = {
+    while (!backward.isEmpty) {
+      val t = backward.poll().toInt
+      backwardQueued(t) = false
+
+      val updated = computeBLevel(t)
+      if (updated != bLevel(t) || backwardForced(t)) {
+        bLevel(t) = updated
+        for (k <- graph.parentsStart(t) until graph.parentsEnd(t))
+          enqueueBackward(graph.parentAt(k))
+        if (prev(t) != -1)
+          enqueueBackward(prev(t))
+      }
+      backwardForced(t) = false
+    }
   }
 }
@@ -3,12 +3,10 @@ package sirens.schedulers
 import java.util
 
 import scala.collection.JavaConverters._
+import scala.collection.mutable
+import sirens.dag.IncrementalActualizer
 import sirens.models.states.MachineType
 import sirens.models.{Task, TaskQueue}
-import sirens.typeclasses.TaskExtension._
-
-import scala.collection.mutable.ListBuffer
-import scala.collection.mutable.{Set => MutableSet}
 
 // Since the EZ algorithm considers only the communication costs among nodes
 // to make scheduling decisions, it does not guarantee optimal schedules
@@ -17,87 +15,74 @@ class EdgeZero extends UnboundedScheduler {
 
   override def generateSchedule(graph: util.List[Task],
                                 machineType: MachineType): util.List[TaskQueue] = {
-    def clusterTaskToQueue(tasks: util.List[Task]): util.List[TaskQueue] = {
-      val cluster = new util.ArrayList[TaskQueue](tasks.size())
-      tasks.forEach { t: Task =>
-        val taskQueue = new TaskQueue(machineType)
-        taskQueue.add(t)
-        cluster.add(taskQueue)
+    // every task starts out on its own machine, so task i is queue handle i
+    val singletons = graph.asScala.map { t =>
+      val taskQueue = new TaskQueue(machineType)
+      taskQueue.add(t)
+      taskQueue
+    }
+    val timed = new IncrementalActualizer(singletons.asJava)
+    val taskGraph = timed.getGraph
+
+    // the cluster of each task, as a union-find over graph indexes, and the
+    // queue handle holding each cluster (valid at its root)
+    val parent = Array.tabulate(taskGraph.size)(identity)
+    val size = Array.fill(taskGraph.size)(1)
+    val handleOf = Array.tabulate(taskGraph.size)(i => timed.getQueueHandle(taskGraph.getTask(i)))
+
+    def find(x: Int): Int = {
+      var i = x
+      while (parent(i) != i) {
+        parent(i) = parent(parent(i))
+        i = parent(i)
       }
-      cluster
+      i
     }
 
-    val clusteredTasks = clusterTaskToQueue(graph)
-    mergeClusters(clusteredTasks.asScala.toList, machineType).asJava
-  }
-
-  private def mergeClusters(as: List[TaskQueue], machineType: MachineType): List[TaskQueue] = {
-    val visited = MutableSet[Task]()
-    val buffer = ListBuffer[TaskQueue]()
-    for ((taskQueue: TaskQueue) <- as) {
-      val newTaskQueue = new TaskQueue(machineType)
-      for (task: Task <- taskQueue.getTasks.asScala) {
-        // First, we try to add the current task to the the TaskQueue
-        if (!newTaskQueue.hasTask(task) && !visited.contains(task)) {
-          newTaskQueue.add(task)
-        }
-
-        // Then, we find the unvisited, zeroable neighbors
-        val neighbors = findNearestNeighbors(task, as, visited)
-        neighbors.foreach { t =>
-          newTaskQueue.add(t)
-        }
-
-        // Save visitation state
-        visited.add(task)
-        neighbors.foreach { t =>
-          visited.add(t)
+    // pairs of clusters already found not to merge since the last merge
+    val rejected = mutable.HashSet[Long]()
+
+    var latency = timed.getLatency
+    for (edge <- edgesByWeight(timed)) {
+      val a = find((edge >>> 32).toInt)
+      val b = find(edge.toInt)
+
+      // zero the edge only if doing so does not lengthen the schedule
+      if (a != b && rejected.add(math.min(a, b).toLong << 32 | math.max(a, b))) {
+        val merged = timed.mergeQueues(handleOf(a), handleOf(b), machineType)
+        if (merged <= latency) {
+          timed.commit()
+          latency = merged
+          rejected.clear()
+
+          val (root, child) = if (size(a) >= size(b)) (a, b) else (b, a)
+          parent(child) = root
+          size(root) += size(child)
+          handleOf(root) = handleOf(a)
+        } else {
+          timed.rollback()
         }
       }
-
-      val sortedQueue: TaskQueue = topologicallySort(newTaskQueue, machineType)
-      buffer += sortedQueue
     }
 
-    buffer.filter { tq =>
-      tq.getTasks.size != 0
-    }.toList
-  }
-
-//  private def generateIntermediate(sortedQueue: TaskQueue,
-//                                   original: List[TaskQueue],
-//                                   buffer: ListBuffer[TaskQueue],
-//                                   currentIndex: Int): List[TaskQueue] = {
-//    val (_, after) = original.splitAt(currentIndex + 1)
-//    (buffer.clone() += sortedQueue).toList ++ after
-//  }
-//
-//  private def costIntermediateList(as: List[TaskQueue]): Int = {
-//    val builtGraph = Actualizer.actualize(as.asJava)
-//    CostAnalyzer.getLatency(builtGraph)
-//  }
-
-  private def findNearestNeighbors(source: Task,
-                                   rest: List[TaskQueue],
-                                   visited: MutableSet[Task]): List[Task] = {
-    val neighbors = source.getChildren ++ source.getParents
-    val restOfTasks = rest.flatMap(_.getTasks.asScala)
-
-    restOfTasks
-      .filter { t =>
-        neighbors.contains(t)
-      }
-      .filter { t =>
-        !visited.contains(t)
-      }
+    timed.toTaskQueues
   }
 
-  private def topologicallySort(taskQueue: TaskQueue, machineType: MachineType): TaskQueue = {
-    val sortedList: util.List[Task] = taskQueue.getTasks.asScala
-      .sortWith(_.getID < _.getID)
-      .asJava
+  // every edge as parent << 32 | child, heaviest first
+  private def edgesByWeight(timed: IncrementalActualizer): Array[Long] = {
+    val taskGraph = timed.getGraph
+    val keys = new Array[Long](taskGraph.edgeCount)
+    val edges = new Array[Long](taskGraph.edgeCount)
+
+    var e = 0
+    for (p <- 0 until taskGraph.size; k <- taskGraph.childrenStart(p) until taskGraph.childrenEnd(p)) {
+      keys(e) = (Int.MaxValue - taskGraph.childWeightAt(k)).toLong << 32 | e
+      edges(e) = p.toLong << 32 | taskGraph.childAt(k)
+      e += 1
+    }
 
-    new TaskQueue(machineType, sortedList)
+    util.Arrays.sort(keys)
+    keys.map(key => edges(key.toInt))
   }
 
   override def toString: String = {
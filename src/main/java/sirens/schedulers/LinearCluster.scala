@@ -2,49 +2,137 @@ package sirens.schedulers
 
 import java.util
 
-import collection.JavaConverters._
-import sirens.typeclasses.TaskExtension._
-import sirens.models.{Task, TaskQueue}
+import sirens.dag.{GraphLevels, LongMaxHeap, TopologicalOrders}
+import sirens.models.{Task, TaskGraph, TaskQueue}
 import sirens.models.states.MachineType
 
-import scala.annotation.tailrec
-import collection.mutable.{ListBuffer, Set => MutableSet}
-
+// Linear clustering: peel the heaviest path off the graph, give it its own
+// machine, and repeat with the tasks that are left. Every queue runs along
+// dependency edges, so the schedule can always be built.
 class LinearCluster extends UnboundedScheduler {
   override def generateSchedule(graph: util.List[Task],
                                 machineType: MachineType): util.List[TaskQueue] = {
-    val immutableGraph = graph.asScala.toList
-    val independentTasks = immutableGraph.filter(_.isIndependent)
-    val sourceTasks = immutableGraph.filter(_.isSource)
-    val levels = GraphProperties.findBottomLevel(immutableGraph, machineType)
-
-    val criticalPaths = immutableGraph.map(t => GraphProperties.findCriticalPathWithLevels(t, levels))
-    val adjacentNodes = criticalPaths.map(neighborsOfCriticalPath)
-
-    val examined = MutableSet[Task]()
-    val buffer = ListBuffer[TaskQueue]()
-
-    for (member <- adjacentNodes) {
-      val candidates =
-        member.filterNot(t => examined.contains(t)).sortWith(_.getID < _.getID)
-      buffer += new TaskQueue(machineType, candidates.asJava)
-      candidates.foreach(t => examined.add(t))
-    }
-    buffer += new TaskQueue(machineType, independentTasks.asJava)
+    val levels = GraphLevels.of(TaskGraph.of(graph), machineType)
+    val taskGraph = levels.getGraph
 
-    buffer.filterNot(_.getTasks.isEmpty).asJava
-  }
+    // the heaviest unclaimed task heads the heaviest path left. Claiming a
+    // path can shorten the paths of the tasks above it; each time one gets
+    // shorter it goes back in, and the entries it left behind are skipped.
+    val heads = new LongMaxHeap(taskGraph.size)
+    val paths = new Paths(levels, (t, level) => heads.add(pack(level, t)))
+    for (t <- 0 until taskGraph.size)
+      heads.add(pack(paths.remainingLevel(t), t))
 
-  def neighborsOfCriticalPath(criticalPath: List[Task]): List[Task] = {
-    val path = MutableSet[Task]()
-    for (member <- criticalPath) {
-      val neighbors = member.getChildren ++ member.getParents
-      neighbors.map(t => path.add(t))
+    val buffer = new util.ArrayList[TaskQueue]()
+    val independentTasks = new util.ArrayList[Task]()
+    while (!heads.isEmpty) {
+      val top = heads.poll()
+      val head = Int.MaxValue - top.toInt
+      if (!paths.isClaimed(head) && paths.remainingLevel(head) == (top >> 32)) {
+        if (taskGraph.inDegree(head) == 0 && taskGraph.outDegree(head) == 0) {
+          paths.claim(head)
+          independentTasks.add(taskGraph.getTask(head))
+        } else {
+          buffer.add(new TaskQueue(machineType, paths.peel(head)))
+        }
+      }
     }
-    path.toList.sortWith(_.getID < _.getID)
+
+    if (!independentTasks.isEmpty)
+      buffer.add(new TaskQueue(machineType, independentTasks))
+
+    buffer
   }
 
+  // by level, then the lowest index
+  private def pack(level: Int, t: Int): Long = level.toLong << 32 | (Int.MaxValue - t)
+
   override def toString: String = {
     "LinearCluster"
   }
 }
+
+// The longest path down from each task through the tasks not yet claimed.
+// Claiming a path can only shorten the paths of the tasks above it, so after
+// each peel those are re-derived children first, stopping wherever nothing
+// got shorter. lowered is told of every task whose path did, and its new length.
+private final class Paths(levels: GraphLevels, lowered: (Int, Int) => Unit) {
+  private val taskGraph = levels.getGraph
+  private val claimed = new Array[Boolean](taskGraph.size)
+  private val remaining = levels.getBottomLevels.clone()
+
+  // tasks to re-derive, deepest first, by topological position
+  private val position = new Array[Int](taskGraph.size)
+  private val queued = new Array[Boolean](taskGraph.size)
+  private val stale = new LongMaxHeap(taskGraph.size)
+
+  private val order = TopologicalOrders.of(taskGraph).forward()
+  for (i <- order.indices)
+    position(order(i)) = i
+
+  def isClaimed(t: Int): Boolean = claimed(t)
+
+  def claim(t: Int): Unit = claimed(t) = true
+
+  // the longest path down from t through unclaimed tasks
+  def remainingLevel(t: Int): Int = remaining(t)
+
+  // claims the path down from head, always through the unclaimed child with the longest path below it
+  def peel(head: Int): util.List[Task] = {
+    val path = new util.ArrayList[Task]()
+
+    var at = head
+    while (at != -1) {
+      claim(at)
+      path.add(taskGraph.getTask(at))
+      val k = longestChild(at)
+      at = if (k == -1) -1 else taskGraph.childAt(k)
+    }
+
+    path.forEach(t => enqueueParents(taskGraph.indexOf(t)))
+    while (!stale.isEmpty) {
+      val t = stale.poll().toInt
+      queued(t) = false
+
+      val k = longestChild(t)
+      val below = if (k == -1) 0 else taskGraph.childWeightAt(k) + remaining(taskGraph.childAt(k))
+      val updated = taskGraph.getLatency(t, levels.getMachineType) + below
+      if (updated != remaining(t)) {
+        remaining(t) = updated
+        lowered(t, updated)
+        enqueueParents(t)
+      }
+    }
+
+    path
+  }
+
+  // the edge to the unclaimed child with the longest path below it (then
+  // the lowest index), or -1
+  private def longestChild(t: Int): Int = {
+    var best = -1
+    var bestPath = 0
+    for (k <- taskGraph.childrenStart(t) until taskGraph.childrenEnd(t)) {
+      val c = taskGraph.childAt(k)
+      if (!claimed(c)) {
+        val path = taskGraph.childWeightAt(k) + remaining(c)
+        if (best == -1 || path > bestPath) {
+          best = k
+          bestPath = path
+        }
+      }
+    }
+
+    best
+  }
+
+  private def enqueueParents(t: Int): Unit = {
+    for (k <- taskGraph.parentsStart(t) until taskGraph.parentsEnd(t)) {
+      val p = taskGraph.parentAt(k)
+      if (!claimed(p) && !queued(p)) {
+        queued(p) = true
+        stale.add(position(p).toLong << 32 | p)
+      }
+    }
+  }
+}
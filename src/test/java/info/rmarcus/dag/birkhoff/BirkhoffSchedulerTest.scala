@@ -0,0 +1,31 @@
+package info.rmarcus.dag.birkhoff
+
+import info.rmarcus.dag.anytime.{AnytimeResult, CancellationToken, SearchBudget}
+import info.rmarcus.javautil.ExecutionPolicy
+import org.junit.Assert._
+import org.junit.Test
+import sirens.dag.CostAnalyzer
+
+import scala.collection.JavaConverters._
+
+class BirkhoffSchedulerTest {
+  @Test def exhaustedBudgetStillGivesASchedule(): Unit = {
+    val scheduler = new BirkhoffScheduler
+    scheduler.measure(3)
+
+    val token = new CancellationToken
+    token.cancel()
+    val budget = SearchBudget.unlimited().withToken(token)
+
+    for (iterations <- List(1000, 0); chains <- List(true, false)) {
+      val result =
+        if (chains) scheduler.learnChains(2, iterations, ExecutionPolicy.sequential(), budget)
+        else scheduler.learn(iterations, budget)
+      val scheduled = result.getSchedule.asScala.flatMap(_.getTasks.asScala)
+
+      assertEquals(AnytimeResult.Status.TRUNCATED, result.getStatus)
+      assertEquals(scheduled.size, scheduled.toSet.size)
+      assertEquals(CostAnalyzer.getLatency(result.getSchedule), result.getCost)
+    }
+  }
+}
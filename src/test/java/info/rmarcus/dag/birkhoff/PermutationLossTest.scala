@@ -0,0 +1,47 @@
+package info.rmarcus.dag.birkhoff
+
+import java.util
+
+import org.junit.Assert._
+import org.junit.Test
+import sirens.dag.{CostAnalyzer, DAGGenerator}
+
+import scala.util.Random
+
+class PermutationLossTest {
+  private val tasks = DAGGenerator.verticesToTasks(DAGGenerator.getSparseLU(5))
+
+  private def permutationMatrix(perm: Seq[Int]): Array[Array[Double]] = {
+    val m = Array.ofDim[Double](perm.size, perm.size)
+    for (i <- perm.indices) m(i)(perm(i)) = 1.0
+    m
+  }
+
+  @Test def matchesScoringTheQueues(): Unit = {
+    val loss = new PermutationLoss(tasks)
+    val random = new Random(42)
+
+    // the buffers are reused, so score several proposals in a row
+    for (_ <- 0 until 20) {
+      val d = util.Arrays.asList(
+        permutationMatrix(random.shuffle((0 until tasks.size).toList)),
+        permutationMatrix(random.shuffle((0 until tasks.size).toList)))
+
+      assertEquals(CostAnalyzer.latencyOf(loss.toQueues(d)).toDouble, loss.applyAsDouble(d), 0.0)
+    }
+  }
+
+  @Test def scoresBatches(): Unit = {
+    val loss = new PermutationLoss(tasks)
+    val identity = permutationMatrix(0 until tasks.size)
+    val reversed = permutationMatrix((0 until tasks.size).reverse)
+    val proposals = util.Arrays.asList(
+      util.Arrays.asList(identity, identity),
+      util.Arrays.asList(reversed, identity))
+
+    val out = new Array[Double](2)
+    loss.scoreAll(proposals, out)
+    assertEquals(loss.applyAsDouble(proposals.get(0)), out(0), 0.0)
+    assertEquals(loss.applyAsDouble(proposals.get(1)), out(1), 0.0)
+  }
+}
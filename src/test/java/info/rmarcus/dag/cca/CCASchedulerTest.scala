@@ -0,0 +1,63 @@
+package info.rmarcus.dag.cca
+
+import org.junit.Assert._
+import org.junit.Test
+import info.rmarcus.dag.anytime.AnytimeResult.Status
+import info.rmarcus.dag.anytime.SearchBudget
+import info.rmarcus.javautil.ExecutionPolicy
+import sirens.dag.{Actualizer, CostAnalyzer, DAGGenerator}
+
+import scala.collection.JavaConverters._
+
+class CCASchedulerTest {
+  private val tasks = DAGGenerator.verticesToTasks(DAGGenerator.getForkJoin(6))
+
+  @Test def batchedMatchesItsSchedule(): Unit = {
+    val result = new CCAScheduler(tasks).batchedSchedule(ExecutionPolicy.sequential(), SearchBudget.unlimited())
+    assertEquals(Status.CONVERGED, result.getStatus)
+    assertEquals(CostAnalyzer.findCostOfBuiltTasks(Actualizer.actualize(result.getSchedule)), result.getCost)
+    assertEquals(tasks.size, result.getSchedule.asScala.map(_.getTasks.size).sum)
+  }
+
+  @Test def batchedIsTheSameOnAnyNumberOfThreads(): Unit = {
+    val sequential = new CCAScheduler(tasks)
+    val sequentialCost = sequential.batchedSchedule(ExecutionPolicy.sequential(), SearchBudget.unlimited()).getCost
+
+    val parallel = new CCAScheduler(tasks)
+    val parallelCost = parallel.batchedSchedule(ExecutionPolicy.defaults().withParallelism(4), SearchBudget.unlimited()).getCost
+
+    assertEquals(sequentialCost, parallelCost)
+    assertEquals(sequential.getRounds, parallel.getRounds)
+  }
+
+  @Test def batchedTakesFewerRounds(): Unit = {
+    val classic = new CCAScheduler(tasks)
+    classic.schedule(1000)
+
+    val batched = new CCAScheduler(tasks)
+    batched.batchedSchedule(ExecutionPolicy.sequential())
+
+    assertTrue(batched.getRounds < classic.getRounds)
+  }
+
+  @Test def autoDeadlineBracketsTheCheapestSchedule(): Unit = {
+    val classicCost = new CCAScheduler(tasks).schedule(1000, SearchBudget.unlimited()).getCost
+    val result = new CCAScheduler(tasks).autoDeadlineSchedule(ExecutionPolicy.defaults().withParallelism(3))
+    val best = result.getBest
+
+    // the unlimited run is the classic one, and nothing constrained beats it here
+    assertEquals(classicCost, best.getCost)
+    assertEquals(CostAnalyzer.findCostOfBuiltTasks(best.getSchedule), best.getCost)
+    assertTrue(CostAnalyzer.getLatency(best.getSchedule) <= result.getDeadline)
+
+    val curve = result.getCurve.asScala
+    assertEquals(best.getCost, curve(result.getDeadline))
+    assertTrue(curve.forall { case (d, cost) => cost > best.getCost || d >= result.getDeadline })
+
+    // the search starts below the critical path, since merging zeroes edges,
+    // and keeps the deadlines it missed
+    assertTrue(result.getLatencyBound <= result.getCriticalPathLength)
+    assertTrue(curve.keys.forall(_ >= result.getLatencyBound))
+    assertTrue(curve.values.exists(_ == DeadlineSearchResult.MISSED))
+  }
+}
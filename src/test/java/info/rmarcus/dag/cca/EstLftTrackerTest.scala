@@ -0,0 +1,66 @@
+package info.rmarcus.dag.cca
+
+import java.util
+
+import org.junit.Assert._
+import org.junit.Test
+import sirens.dag.{DAGGenerator, IncrementalActualizer}
+import sirens.models.TaskQueue
+import sirens.models.states.MachineType
+
+import scala.collection.JavaConverters._
+import scala.util.Random
+
+class EstLftTrackerTest {
+  @Test def mergesMatchAFullRecompute(): Unit = {
+    val tasks = DAGGenerator.verticesToTasks(DAGGenerator.getSparseLU(6)).asScala.sortBy(_.getID)
+    val tqs = new util.ArrayList[TaskQueue]()
+    for (t <- tasks) {
+      val tq = new TaskQueue(MachineType.SMALL)
+      tq.add(t)
+      tqs.add(tq)
+    }
+
+    val timed = new IncrementalActualizer(tqs)
+    val tracker = new EstLftTracker(timed, 1000)
+    val rand = new Random(42)
+    var live = (0 until tqs.size).toVector
+
+    while (live.size > 1) {
+      val a = live(rand.nextInt(live.size))
+      val b = rand.shuffle(live.filter(_ != a)).head
+      val mt = if (rand.nextBoolean()) MachineType.SMALL else MachineType.LARGE
+      timed.mergeQueues(a, b, mt)
+      timed.commit()
+      tracker.queueChanged(a)
+      live = live.filter(_ != b)
+
+      val fresh = new EstLftTracker(timed, 1000)
+      for (t <- tasks) {
+        assertEquals(fresh.getEST(t), tracker.getEST(t))
+        assertEquals(fresh.getLFT(t), tracker.getLFT(t))
+      }
+
+      for (q <- live)
+        assertEquals(fresh.getClusterPriority(q), tracker.getClusterPriority(q))
+    }
+  }
+
+  @Test def copiesShiftTheDeadline(): Unit = {
+    val tasks = DAGGenerator.verticesToTasks(DAGGenerator.getSparseLU(6))
+    val tqs = new util.ArrayList[TaskQueue]()
+    tasks.asScala.sortBy(_.getID).foreach(t => tqs.add(new TaskQueue(MachineType.SMALL, util.Arrays.asList(t))))
+
+    val timed = new IncrementalActualizer(tqs)
+    val tracker = new EstLftTracker(timed, 1000)
+    val copied = timed.copy()
+    val shifted = tracker.copy(copied, 250)
+    val fresh = new EstLftTracker(copied, 250)
+
+    for (t <- tasks.asScala) {
+      assertEquals(fresh.getEST(t), shifted.getEST(t))
+      assertEquals(fresh.getLFT(t), shifted.getLFT(t))
+    }
+    assertEquals(fresh.getCriticalPathLength, shifted.getCriticalPathLength)
+  }
+}
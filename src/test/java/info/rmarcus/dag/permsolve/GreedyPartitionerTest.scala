@@ -0,0 +1,38 @@
+package info.rmarcus.dag.permsolve
+
+import java.util
+
+import org.junit.Assert._
+import org.junit.Test
+import sirens.dag.ScheduleEvaluator
+import sirens.experiments.GraphGenerator
+import sirens.models.TaskGraph
+import sirens.models.states.MachineType
+
+import scala.collection.JavaConverters._
+
+class GreedyPartitionerTest {
+  @Test def everyRemainingSeparatorIsNeeded(): Unit = {
+    val graph = GraphGenerator.genericGraph(40)
+    val eval = new ScheduleEvaluator(TaskGraph.of(graph))
+    def latency(separators: util.Set[Integer]): Int =
+      eval.evaluatePartitions(graph, i => separators.contains(i), MachineType.SMALL).getLatency
+
+    val separators = new GreedyPartitioner(graph).solve()
+    val allSeparators = new util.HashSet[Integer]((0 until graph.size() - 1).map(Int.box).asJava)
+    val cost = latency(separators)
+    assertTrue(cost <= latency(allSeparators))
+
+    for (s <- separators.asScala) {
+      val without = new util.HashSet[Integer](separators)
+      without.remove(s)
+      assertTrue(s"removing separator $s should cost more", latency(without) > cost)
+    }
+  }
+
+  @Test def greedySolveUsesPartitioner(): Unit = {
+    val graph = GraphGenerator.genericGraph(30)
+    val separators = new GreedyPartitioner(graph).solve()
+    assertEquals(separators.size() + 1, PermutationSolver.greedySolve(graph).size())
+  }
+}
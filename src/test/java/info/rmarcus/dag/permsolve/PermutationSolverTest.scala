@@ -0,0 +1,143 @@
+package info.rmarcus.dag.permsolve
+
+import java.util
+import java.util.concurrent.ForkJoinPool
+
+import org.junit.Assert._
+import org.junit.Test
+import info.rmarcus.dag.anytime.{AnytimeResult, CancellationToken, SearchBudget}
+import info.rmarcus.dag.anytime.AnytimeResult.Status
+import info.rmarcus.dag.permsolve.optimal.{LowerBounds, PruningFlyweight}
+import info.rmarcus.javautil.ExecutionPolicy
+import sirens.dag.CostAnalyzer
+import sirens.experiments.GraphGenerator
+import sirens.models.Task
+import sirens.models.states.MachineType
+
+class PermutationSolverTest {
+  @Test def parallelSolveMatchesSolve(): Unit = {
+    val graph = GraphGenerator.genericGraph(9)
+
+    val sequential = CostAnalyzer.getLatency(PermutationSolver.solve(graph))
+
+    val pool = new ForkJoinPool(4)
+    try {
+      val parallel = CostAnalyzer.getLatency(PermutationSolver.parallelSolve(graph, pool))
+      assertEquals(sequential, parallel)
+    } finally {
+      pool.shutdown()
+    }
+  }
+
+  @Test def depthFirstSolveMatchesSolve(): Unit = {
+    val graph = GraphGenerator.genericGraph(9)
+
+    val sequential = CostAnalyzer.getLatency(PermutationSolver.solve(graph))
+    assertEquals(sequential, CostAnalyzer.getLatency(PermutationSolver.depthFirstSolve(graph)))
+    assertEquals(sequential, CostAnalyzer.getLatency(PermutationSolver.iterativeDeepeningSolve(graph)))
+  }
+
+  @Test def seededSolveMatchesSolve(): Unit = {
+    val graph = GraphGenerator.genericGraph(9)
+    val unseeded = CostAnalyzer.getLatency(PermutationSolver.solve(graph))
+
+    val pf = new PruningFlyweight
+    val seeding = HeuristicPortfolio.standard().seed(pf, graph)
+    assertNotNull(seeding.getWinner)
+    val seedCost = pf.getBestObservedCost
+    assertEquals(seedCost, seeding.getCosts.get(seeding.getWinner).intValue)
+    assertTrue(seeding.getCosts.values.stream.allMatch(_ >= seedCost))
+
+    val seeded = CostAnalyzer.getLatency(PermutationSolver.solve(graph, pf))
+    // a heuristic may find a schedule the partition search cannot reach
+    assertEquals(math.min(seedCost, unseeded), seeded)
+  }
+
+  @Test def boundsCountTheirPrunes(): Unit = {
+    val graph = GraphGenerator.genericGraph(9)
+    val expected = CostAnalyzer.getLatency(PermutationSolver.solve(graph))
+
+    val bounds = LowerBounds.standard(graph)
+    val result = PermutationSolver.solve(graph, new PruningFlyweight, bounds, SearchBudget.unlimited())
+    assertEquals(expected, result.getCost)
+    assertTrue((0 until bounds.size).map(bounds.getPruned).sum > 0)
+  }
+
+  @Test def failingHeuristicsAreSkipped(): Unit = {
+    val graph = GraphGenerator.genericGraph(9)
+    val pf = new PruningFlyweight
+    val seeding = new HeuristicPortfolio()
+      .add("broken", _ => throw new IllegalStateException("no schedule"))
+      .add("greedy", PermutationSolver.greedySolve(_))
+      .seed(pf, graph)
+
+    assertEquals("greedy", seeding.getWinner)
+    assertEquals("no schedule", seeding.getFailures.get("broken").getMessage)
+    assertFalse(seeding.getCosts.containsKey("broken"))
+    assertEquals(pf.getBestObservedCost, seeding.getCosts.get("greedy").intValue)
+  }
+
+  @Test def forcedSolveKeepsAChainOnOneQueue(): Unit = {
+    // every task after its parent, so nothing forces a new queue; appending
+    // used to rescan the queue each time, which is quadratic at this size
+    val chain = new util.ArrayList[Task]()
+    for (i <- 0 until 100000) {
+      val t = new Task(i, MachineType.latencyMap(10))
+      if (i > 0) t.addDependency(5, chain.get(i - 1))
+      chain.add(t)
+    }
+
+    val queues = new PermutationSolver(chain).forcedSolve(chain)
+    assertEquals(1, queues.size)
+    assertEquals(chain, queues.get(0).getTasks)
+  }
+
+  @Test def unlimitedBudgetIsOptimal(): Unit = {
+    val graph = GraphGenerator.genericGraph(9)
+    val expected = CostAnalyzer.getLatency(PermutationSolver.solve(graph))
+
+    var reports = List[Int]()
+    val budget = SearchBudget.unlimited().withListener((cost, bound) => {
+      assertTrue(bound <= cost)
+      reports = cost :: reports
+    })
+
+    val result = PermutationSolver.solve(graph, new PruningFlyweight, budget)
+    assertEquals(Status.OPTIMAL, result.getStatus)
+    assertEquals(expected, result.getCost)
+    assertEquals(0, result.getGap)
+    assertEquals(expected, reports.head)
+    assertEquals(reports.sorted, reports) // newest first, so never increasing over time
+  }
+
+  @Test def cancelledSearchesReturnTheirIncumbent(): Unit = {
+    val graph = GraphGenerator.genericGraph(12)
+    val token = new CancellationToken
+    token.cancel()
+    val budget = SearchBudget.unlimited().withToken(token)
+
+    // every result builds the same tasks, so check each before running the next
+    val searches = List[() => AnytimeResult](
+      () => PermutationSolver.solve(graph, new PruningFlyweight, budget),
+      () => PermutationSolver.depthFirstSolve(graph, new PruningFlyweight, budget),
+      () => PermutationSolver.iterativeDeepeningSolve(graph, budget),
+      () => PermutationSolver.parallelSolve(graph, ExecutionPolicy.defaults().withParallelism(2), budget),
+      () => PermutationSolver.greedySolve(graph, budget))
+
+    for (search <- searches) {
+      val r = search()
+      assertEquals(Status.TRUNCATED, r.getStatus)
+      assertEquals(r.getCost, CostAnalyzer.getLatency(r.getSchedule))
+      assertTrue(!r.hasLowerBound || r.getLowerBound <= r.getCost)
+    }
+  }
+
+  @Test def deadlineStopsParallelWorkers(): Unit = {
+    val graph = GraphGenerator.genericGraph(40)
+    val start = System.currentTimeMillis()
+    val result = PermutationSolver.parallelSolve(graph, ExecutionPolicy.defaults().withParallelism(4), SearchBudget.ofMillis(200))
+
+    assertEquals(Status.TRUNCATED, result.getStatus)
+    assertTrue(System.currentTimeMillis() - start < 5000)
+  }
+}
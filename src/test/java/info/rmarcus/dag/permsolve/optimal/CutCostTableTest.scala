@@ -0,0 +1,45 @@
+package info.rmarcus.dag.permsolve.optimal
+
+import org.junit.Assert._
+import org.junit.Test
+
+import scala.collection.JavaConverters._
+import scala.util.Random
+
+class CutCostTableTest {
+  private def randomCosts(n: Int): Array[Array[Int]] = {
+    val random = new Random(9)
+    val costs = Array.ofDim[Int](n, n)
+    for (i <- 0 until n; j <- i + 1 until n) {
+      costs(i)(j) = random.nextInt(50)
+      costs(j)(i) = costs(i)(j)
+    }
+    costs
+  }
+
+  @Test def matchesDisconnectedPairs(): Unit = {
+    val costs = randomCosts(12)
+    val cuts = new CutCostTable(costs)
+
+    var sbn = new StarsAndBarsNode(12)
+    assertEquals(0, cuts.cutCost(sbn))
+
+    for (child <- List(1, 0, 2, 3)) {
+      sbn = sbn.getChild(child)
+      val all = sbn.getAllDisconnectedPairs.asScala.map(p => costs(p.a)(p.b)).sum
+      val added = sbn.getAdditionalDisconnectedPairsFromRightmostSeperator.asScala.map(p => costs(p.a)(p.b)).sum
+
+      assertEquals(all, cuts.cutCost(sbn))
+      assertEquals(added, cuts.addedByLastSeparator(sbn))
+    }
+  }
+
+  @Test def rangeCost(): Unit = {
+    val costs = randomCosts(6)
+    val cuts = new CutCostTable(costs)
+
+    val expected = (for (a <- 1 to 3; b <- 2 to 5) yield costs(a)(b)).sum
+    assertEquals(expected, cuts.rangeCost(1, 3, 2, 5))
+    assertEquals(0, cuts.rangeCost(3, 2, 0, 5))
+  }
+}
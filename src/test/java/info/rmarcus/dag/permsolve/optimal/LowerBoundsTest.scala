@@ -0,0 +1,69 @@
+package info.rmarcus.dag.permsolve.optimal
+
+import java.util
+import java.util.Collections
+
+import org.junit.Assert._
+import org.junit.Test
+import sirens.experiments.GraphGenerator
+import sirens.models.Task
+
+import scala.collection.JavaConverters._
+import scala.util.Random
+
+class LowerBoundsTest {
+  private def costs(tasks: util.List[Task]): Array[Array[Int]] = {
+    val n = tasks.size
+    val toR = Array.ofDim[Int](n, n)
+    for (i <- 0 until n; j <- i + 1 until n) {
+      toR(i)(j) = tasks.get(i).getCostTo(tasks.get(j))
+      toR(j)(i) = toR(i)(j)
+    }
+    toR
+  }
+
+  // depth first over every surviving node; returns the best latency and the number of nodes expanded
+  private def search(tasks: util.List[Task], bounds: LowerBounds): (Int, Int) = {
+    val pf = new PruningFlyweight
+    val stack = new util.ArrayDeque[ScheduleNode]()
+    stack.push(new InOrderScheduleNode(tasks, pf, costs(tasks), bounds))
+
+    var expanded = 0
+    while (!stack.isEmpty) {
+      val node = stack.pop()
+      expanded += 1
+      for (i <- 0 until node.getNumChildren) {
+        val child = node.createChild(i)
+        if (!child.isPruned) stack.push(child)
+      }
+    }
+
+    (pf.getBestObservedCost, expanded)
+  }
+
+  @Test def standardBoundsKeepTheOptimum(): Unit = {
+    val graph = GraphGenerator.genericGraph(12)
+    val shuffled = new util.ArrayList[Task](new Random(4).shuffle(graph.asScala).asJava)
+
+    val (exhaustive, all) = search(shuffled, new LowerBounds(Collections.emptyList()))
+    val bounds = LowerBounds.standard(shuffled)
+    val (bounded, expanded) = search(shuffled, bounds)
+
+    assertEquals(exhaustive, bounded)
+    assertTrue(expanded < all)
+    assertTrue((0 until bounds.size).map(bounds.getPruned).sum > 0)
+  }
+
+  @Test def boundsNeverExceedTheNodesOwnCost(): Unit = {
+    val graph = GraphGenerator.genericGraph(10)
+    val bounds = LowerBounds.standard(graph)
+    var node: ScheduleNode = new ScheduleNode(graph, new PruningFlyweight, costs(graph), bounds)
+
+    // the node's own schedule is in its subtree, so no bound may be above it
+    for (child <- List(1, 2, 0)) {
+      node = node.createChild(child)
+      for (i <- 0 until bounds.size)
+        assertTrue(bounds.get(i).compute(node) <= node.getCost)
+    }
+  }
+}
@@ -42,4 +42,14 @@ class StarsAndBarsNodeTest {
     sbn = sbn.getChild(5)
     assertFalse(sbn.partitionSizesIncreasing)
   }
+
+  @Test def partitionsFollowSeparators(): Unit = {
+    val sbn = new StarsAndBarsNode(6).getChild(1).getChild(2)
+
+    assertEquals(2, sbn.getNumSeparators)
+    assertTrue(sbn.hasSeparatorAfter(1))
+    assertTrue(sbn.hasSeparatorAfter(4))
+    assertFalse(sbn.hasSeparatorAfter(2))
+    assertEquals("[[0, 1], [2, 3, 4], [5]]", sbn.getPartitions.toString)
+  }
 }
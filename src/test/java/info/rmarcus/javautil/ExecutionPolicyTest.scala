@@ -0,0 +1,51 @@
+package info.rmarcus.javautil
+
+import java.util
+
+import org.junit.Assert._
+import org.junit.Test
+import info.rmarcus.javautil.ExecutionPolicy.Granularity
+
+import scala.collection.JavaConverters._
+
+class ExecutionPolicyTest {
+  private val items: util.List[Integer] = (0 until 1000).map(Int.box).asJava
+  private val squares = (0 until 1000).map(i => Int.box(i * i)).asJava
+
+  @Test def everyGranularityKeepsOrder(): Unit = {
+    val policies = List(
+      ExecutionPolicy.sequential(),
+      ExecutionPolicy.defaults().withParallelism(4),
+      ExecutionPolicy.defaults().withParallelism(4).withGranularity(Granularity.PER_ITEM),
+      ExecutionPolicy.defaults().withParallelism(3).withPoolReuse(false),
+      ExecutionPolicy.defaults().withParallelism(2).withVirtualThreads(true)
+    )
+
+    for (p <- policies)
+      assertEquals(squares, p.map[Integer, Integer](items, (i: Integer) => Int.box(i * i)))
+  }
+
+  @Test def readsSystemProperties(): Unit = {
+    System.setProperty(ExecutionPolicy.THREADS_PROPERTY, "2")
+    System.setProperty(ExecutionPolicy.GRANULARITY_PROPERTY, "per_item")
+    try {
+      val p = ExecutionPolicy.fromSystemProperties()
+      assertEquals(2, p.getParallelism)
+      assertEquals(Granularity.PER_ITEM, p.getGranularity)
+      assertTrue(p.isPoolReused)
+    } finally {
+      System.clearProperty(ExecutionPolicy.THREADS_PROPERTY)
+      System.clearProperty(ExecutionPolicy.GRANULARITY_PROPERTY)
+    }
+  }
+
+  @Test def failuresReachTheCaller(): Unit = {
+    try {
+      ExecutionPolicy.defaults().withParallelism(4).map[Integer, Integer](items, (i: Integer) =>
+        if (i == 500) throw new IllegalStateException("boom") else i)
+      fail()
+    } catch {
+      case e: IllegalStateException => assertTrue(e.getMessage.contains("boom"))
+    }
+  }
+}
@@ -1,12 +1,15 @@
 package quick.sirens.dag
 
-import org.junit.Assert.assertTrue
+import java.util
+
+import org.junit.Assert.{assertEquals, assertTrue}
 import org.junit.Test
 
 import collection.JavaConverters._
 
-import sirens.dag.Actualizer
+import sirens.dag.{Actualizer, DAGException}
 import sirens.experiments.GraphGenerator
+import sirens.models.{Task, TaskQueue}
 import sirens.models.states.MachineType
 import sirens.schedulers.RoundRobin
 
@@ -24,4 +27,37 @@ class ActualizerTest {
         .flatMap(_.getTasks.asScala.toList)
         .forall(_.isBuilt))
   }
+
+  @Test
+  def matchesTaskByTaskBuild(): Unit = {
+    val graph = GraphGenerator.genericGraph(60)
+    val tqs = new RoundRobin().generateSchedule(graph, 5, MachineType.SMALL)
+
+    val times = Actualizer.actualize(tqs).asScala.flatMap(_.getTasks.asScala)
+      .map(t => t.getID -> (t.getStartEndTime.get.getStart, t.getStartEndTime.get.getEnd)).toMap
+
+    // time the same queues by repeatedly sweeping them with Task.build
+    tqs.forEach(_.unbuildAll())
+    while (tqs.asScala.exists(_.hasUnbuiltTask)) {
+      assertTrue(tqs.asScala.map(_.buildNextUnbuiltTask).exists(identity))
+    }
+
+    tqs.asScala.flatMap(_.getTasks.asScala).foreach { t =>
+      assertEquals(times(t.getID), (t.getStartEndTime.get.getStart, t.getStartEndTime.get.getEnd))
+    }
+  }
+
+  @Test(expected = classOf[DAGException])
+  def detectsQueueOrderCycles(): Unit = {
+    val a = new Task(0, MachineType.latencyMap(10))
+    val b = new Task(1, MachineType.latencyMap(10))
+    val c = new Task(2, MachineType.latencyMap(10))
+    b.addDependency(5, a)
+    c.addDependency(5, b)
+
+    // c must wait for b, which waits for a, but a is queued behind c
+    val first = new TaskQueue(MachineType.SMALL, util.Arrays.asList(c, a))
+    val second = new TaskQueue(MachineType.SMALL, util.Arrays.asList(b))
+    Actualizer.actualize(util.Arrays.asList(first, second))
+  }
 }
@@ -0,0 +1,79 @@
+package quick.sirens.dag
+
+import java.util.Random
+
+import org.junit.Assert._
+import org.junit.Test
+import sirens.dag.CriticalPaths
+import sirens.experiments.GraphGenerator
+import sirens.models.{Task, TaskGraph}
+import sirens.models.states.MachineType
+
+import scala.collection.JavaConverters._
+
+class CriticalPathsTest {
+  private val graph = TaskGraph.of(GraphGenerator.genericGraph(40))
+
+  // every source-to-sink path's length, by brute force
+  private def allPathLengths(g: TaskGraph): Seq[Int] = {
+    def from(t: Int): Seq[Int] = {
+      val here = g.getLatency(t, MachineType.SMALL)
+      if (g.outDegree(t) == 0) Seq(here)
+      else (g.childrenStart(t) until g.childrenEnd(t)).flatMap { k =>
+        from(g.childAt(k)).map(_ + here + g.childWeightAt(k))
+      }
+    }
+
+    (0 until g.size).filter(g.inDegree(_) == 0).flatMap(from)
+  }
+
+  private def length(g: TaskGraph, path: Array[Int]): Int = {
+    path.map(g.getLatency(_, MachineType.SMALL)).sum +
+      path.sliding(2).filter(_.length == 2).map(p => g.getEdgeWeight(p(0), p(1))).sum
+  }
+
+  @Test def countsMatchEnumeration(): Unit = {
+    val lengths = allPathLengths(graph)
+    val longest = lengths.max
+    val paths = CriticalPaths.of(graph, MachineType.SMALL)
+
+    for (slack <- List(0, 100, 300, 1000, 10000))
+      assertEquals(lengths.count(_ >= longest - slack).toLong, paths.countNearCritical(slack))
+    assertEquals(lengths.count(_ == longest).toLong, paths.count)
+  }
+
+  @Test def tiesAreCounted(): Unit = {
+    // a to d through b or through c, both 25 long; the edge a -> d is shorter
+    val a = new Task(0, MachineType.latencyMap(10))
+    val b = new Task(1, MachineType.latencyMap(5))
+    val c = new Task(2, MachineType.latencyMap(3))
+    val d = new Task(3, MachineType.latencyMap(10))
+    b.addDependency(0, a)
+    c.addDependency(1, a)
+    d.addDependency(0, b)
+    d.addDependency(1, c)
+    d.addDependency(4, a)
+
+    val g = TaskGraph.of(List(a, b, c, d).asJava)
+    val paths = CriticalPaths.of(g, MachineType.SMALL)
+    assertEquals(2, paths.count)
+    assertEquals(2, paths.countNearCritical(0))
+    assertEquals(3, paths.countNearCritical(1))
+
+    val sampled = paths.sample(400, new Random(42)).asScala.map(_.map(g.getTask).toList)
+    assertTrue(sampled.forall(p => p == List(a, b, d) || p == List(a, c, d)))
+    assertTrue(sampled.count(_ == List(a, b, d)) > 150)
+    assertTrue(sampled.count(_ == List(a, c, d)) > 150)
+  }
+
+  @Test def samplesAreCriticalPaths(): Unit = {
+    val paths = CriticalPaths.of(graph, MachineType.SMALL)
+    val longest = allPathLengths(graph).max
+
+    paths.sample(50, new Random(7)).forEach { path =>
+      assertEquals(0, graph.inDegree(path.head))
+      assertEquals(0, graph.outDegree(path.last))
+      assertEquals(longest, length(graph, path))
+    }
+  }
+}
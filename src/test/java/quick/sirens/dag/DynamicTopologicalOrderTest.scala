@@ -0,0 +1,55 @@
+package quick.sirens.dag
+
+import org.junit.Assert._
+import org.junit.Test
+import sirens.dag.DynamicTopologicalOrder
+
+import scala.collection.mutable
+import scala.util.Random
+
+class DynamicTopologicalOrderTest {
+  private def reachable(edges: mutable.Set[(Int, Int)], from: Int, to: Int): Boolean = {
+    val seen = mutable.Set(from)
+    val stack = mutable.Stack(from)
+    while (stack.nonEmpty) {
+      val v = stack.pop()
+      if (v == to) return true
+      edges.filter(_._1 == v).map(_._2).filterNot(seen).foreach { w => seen += w; stack.push(w) }
+    }
+    false
+  }
+
+  @Test
+  def rejectsExactlyTheCycles(): Unit = {
+    val n = 40
+    val order = new DynamicTopologicalOrder(n)
+    val edges = mutable.Set[(Int, Int)]()
+    val random = new Random(17)
+
+    for (_ <- 0 until 400) {
+      val from = random.nextInt(n)
+      val to = random.nextInt(n)
+      val closesCycle = from == to || reachable(edges, to, from)
+
+      assertEquals(!closesCycle, order.addEdge(from, to))
+      if (!closesCycle) edges += ((from, to))
+
+      edges.foreach { case (a, b) => assertTrue(order.position(a) < order.position(b)) }
+      (0 until n).foreach(v => assertEquals(v, order.vertexAt(order.position(v))))
+    }
+  }
+
+  @Test
+  def removingAnEdgeAllowsTheReverse(): Unit = {
+    val order = new DynamicTopologicalOrder(3)
+    assertTrue(order.addEdge(0, 1))
+    assertTrue(order.addEdge(1, 2))
+    assertFalse(order.addEdge(2, 0))
+    assertTrue(order.reaches(0, 2))
+
+    order.removeEdge(1, 2)
+    assertFalse(order.reaches(0, 2))
+    assertTrue(order.addEdge(2, 0))
+    assertTrue(order.position(2) < order.position(0))
+  }
+}
@@ -0,0 +1,68 @@
+package quick.sirens.dag
+
+import java.util
+
+import org.junit.Assert._
+import org.junit.Test
+import sirens.dag.{DAGGenerator, EvaluationCache, ScheduleEvaluator}
+import sirens.models.{TaskGraph, TaskQueue}
+import sirens.models.states.MachineType
+
+import scala.collection.JavaConverters._
+
+class EvaluationCacheTest {
+  private val tasks = new util.ArrayList(DAGGenerator.verticesToTasks(DAGGenerator.getSparseLU(4)).asScala.sortBy(_.getID).asJava)
+  private val graph = TaskGraph.of(tasks)
+
+  @Test def repeatsAreHits(): Unit = {
+    val cache = new EvaluationCache(graph, 1024)
+    val expected = new ScheduleEvaluator(graph).evaluatePartitions(tasks, _ % 5 == 4, MachineType.SMALL)
+    val (latency, cost) = (expected.getLatency, expected.getCost)
+
+    assertEquals(latency, cache.getLatency(tasks, _ % 5 == 4, MachineType.SMALL))
+    assertEquals(cost, cache.getCost(tasks, _ % 5 == 4, MachineType.SMALL))
+    assertEquals(1, cache.getMisses)
+    assertEquals(1, cache.getHits)
+  }
+
+  @Test def queueOrderDoesNotMatter(): Unit = {
+    val cache = new EvaluationCache(graph, 1024)
+    val queues = tasks.asScala.grouped(8).map(chunk => new TaskQueue(MachineType.SMALL, chunk.asJava)).toList
+
+    // the same queues, as a list or as partitions, in either order
+    val latency = cache.getLatency(queues.asJava)
+    assertEquals(latency, cache.getLatency(queues.reverse.asJava))
+    assertEquals(latency, cache.getLatency(tasks, _ % 8 == 7, MachineType.SMALL))
+    assertEquals(1, cache.getMisses)
+    assertEquals(2, cache.getHits)
+
+    // but a different machine type is a different schedule
+    cache.getLatency(tasks, _ % 8 == 7, MachineType.LARGE)
+    assertEquals(2, cache.getMisses)
+  }
+
+  @Test def boundedByEviction(): Unit = {
+    val cache = new EvaluationCache(graph, 16)
+    for (cut <- 1 until tasks.size)
+      cache.getLatency(tasks, _ == cut - 1, MachineType.SMALL)
+
+    assertTrue(cache.size <= 16)
+    assertEquals(tasks.size - 1 - cache.size, cache.getEvictions)
+  }
+
+  @Test def sharedBetweenThreads(): Unit = {
+    val cache = new EvaluationCache(graph, 1024)
+    val expected = (1 until tasks.size).map(cut =>
+      new ScheduleEvaluator(graph).evaluatePartitions(tasks, _ == cut - 1, MachineType.SMALL).getLatency)
+
+    val threads = (0 until 4).map { _ =>
+      new Thread(() => for (cut <- 1 until tasks.size)
+        assertEquals(expected(cut - 1), cache.getLatency(tasks, _ == cut - 1, MachineType.SMALL)))
+    }
+    threads.foreach(_.start())
+    threads.foreach(_.join())
+
+    assertEquals(4L * (tasks.size - 1), cache.getHits + cache.getMisses)
+    assertTrue(cache.getHits > 0)
+  }
+}
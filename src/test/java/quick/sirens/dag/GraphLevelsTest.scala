@@ -0,0 +1,52 @@
+package quick.sirens.dag
+
+import org.junit.Assert._
+import org.junit.Test
+import sirens.dag.GraphLevels
+import sirens.experiments.GraphGenerator
+import sirens.models.{Task, TaskGraph}
+import sirens.models.states.MachineType
+
+import scala.collection.JavaConverters._
+
+class GraphLevelsTest {
+  @Test def diamondLevels(): Unit = {
+    // a fans out to b and c, which join at d; a -> c -> d is the long way
+    val a = new Task(0, MachineType.latencyMap(10))
+    val b = new Task(1, MachineType.latencyMap(20))
+    val c = new Task(2, MachineType.latencyMap(30))
+    val d = new Task(3, MachineType.latencyMap(5))
+    b.addDependency(1, a)
+    c.addDependency(2, a)
+    d.addDependency(3, b)
+    d.addDependency(4, c)
+
+    // listed out of topological order on purpose
+    val levels = GraphLevels.of(TaskGraph.of(List(d, c, b, a).asJava), MachineType.SMALL)
+    assertEquals(List(0, 11, 12, 46), List(a, b, c, d).map(levels.getTopLevel))
+    assertEquals(List(51, 28, 39, 5), List(a, b, c, d).map(levels.getBottomLevel))
+    assertEquals(51, levels.getCriticalPathLength)
+    assertEquals(List(a, c, d), levels.getCriticalPath.map(levels.getGraph.getTask).toList)
+  }
+
+  @Test def levelsBoundTheCriticalPath(): Unit = {
+    val graph = TaskGraph.of(GraphGenerator.genericGraph(200))
+    val levels = GraphLevels.of(graph, MachineType.SMALL)
+    val length = levels.getCriticalPathLength
+
+    for (t <- 0 until graph.size) {
+      assertTrue(levels.getTopLevels()(t) + levels.getBottomLevels()(t) <= length)
+      assertEquals(length - levels.getBottomLevels()(t), levels.getALAP()(t))
+      assertTrue(levels.getASAP()(t) <= levels.getALAP()(t))
+    }
+
+    // the critical path is a path whose length is the critical path length
+    val path = levels.getCriticalPath
+    val total = path.map(graph.getLatency(_, MachineType.SMALL)).sum +
+      path.sliding(2).filter(_.length == 2).map(p => graph.getEdgeWeight(p(0), p(1))).sum
+    assertEquals(0, graph.inDegree(path.head))
+    assertEquals(0, graph.outDegree(path.last))
+    assertEquals(length, total)
+    assertSame(levels, GraphLevels.of(graph, MachineType.SMALL))
+  }
+}
@@ -0,0 +1,189 @@
+package quick.sirens.dag
+
+import java.util
+
+import org.junit.Assert._
+import org.junit.Test
+import sirens.dag.{Actualizer, CostAnalyzer, DAGException, IncrementalActualizer}
+import sirens.experiments.GraphGenerator
+import sirens.models.{Task, TaskQueue}
+import sirens.models.states.MachineType
+
+import scala.collection.JavaConverters._
+import scala.util.Random
+
+class IncrementalActualizerTest {
+  private def singletons(graph: util.List[Task]): util.List[TaskQueue] = {
+    graph.asScala.map(t => new TaskQueue(MachineType.SMALL, util.Arrays.asList(t))).asJava
+  }
+
+  // re-time the incremental actualizer's schedule from scratch and compare
+  private def assertMatchesFullActualization(timed: IncrementalActualizer): Unit = {
+    val full = Actualizer.actualize(timed.toTaskQueues())
+    assertEquals(CostAnalyzer.getLatency(full), timed.getLatency)
+    assertEquals(CostAnalyzer.findCostOfBuiltTasks(full), timed.getCost)
+
+    full.asScala.flatMap(_.getTasks.asScala).foreach { t =>
+      assertEquals(t.getStartEndTime.get.getStart, timed.getStartEndTime(t).getStart)
+      assertEquals(t.getStartEndTime.get.getEnd, timed.getStartEndTime(t).getEnd)
+    }
+  }
+
+  @Test
+  def mergesMatchFullActualization(): Unit = {
+    val graph = GraphGenerator.genericGraph(80)
+    val timed = new IncrementalActualizer(singletons(graph))
+    val random = new Random(42)
+
+    for (_ <- 0 until 60) {
+      val live = (0 until graph.size).filter(timed.getQueueSize(_) > 0)
+      val a = live(random.nextInt(live.size))
+      val b = live(random.nextInt(live.size))
+      if (a != b) {
+        timed.mergeQueues(a, b, MachineType.SMALL)
+        timed.commit()
+        assertMatchesFullActualization(timed)
+      }
+    }
+  }
+
+  @Test
+  def rollbackRestoresSchedule(): Unit = {
+    val graph = GraphGenerator.genericGraph(50)
+    val timed = new IncrementalActualizer(singletons(graph))
+    val latency = timed.getLatency
+    val cost = timed.getCost
+
+    timed.mergeQueues(0, 1, MachineType.SMALL)
+    timed.mergeQueues(0, 2, MachineType.SMALL)
+    timed.splitQueue(0, 1)
+    timed.rollback()
+
+    assertEquals(latency, timed.getLatency)
+    assertEquals(cost, timed.getCost)
+    assertEquals(1, timed.getQueueSize(0))
+    assertEquals(1, timed.getQueueSize(1))
+    assertMatchesFullActualization(timed)
+  }
+
+  @Test
+  def splitAndMoveMatchFullActualization(): Unit = {
+    val graph = GraphGenerator.genericGraph(40)
+    val firstHalf = new util.ArrayList[Task](graph.subList(0, 20))
+    val secondHalf = new util.ArrayList[Task](graph.subList(20, 40))
+    val timed = new IncrementalActualizer(util.Arrays.asList(
+      new TaskQueue(MachineType.SMALL, firstHalf),
+      new TaskQueue(MachineType.SMALL, secondHalf)))
+
+    val tail = timed.splitQueue(0, 10)
+    timed.commit()
+    assertMatchesFullActualization(timed)
+
+    // moving the last task of the graph to the end of another queue keeps it a DAG
+    timed.moveTask(graph.get(39), tail, timed.getQueueSize(tail))
+    timed.commit()
+    assertMatchesFullActualization(timed)
+  }
+
+  @Test
+  def cyclesAreInfeasible(): Unit = {
+    val graph = GraphGenerator.genericGraph(30)
+    val timed = new IncrementalActualizer(util.Arrays.asList(
+      new TaskQueue(MachineType.SMALL, graph)))
+    val first = graph.get(0)
+
+    // put the first task behind every other task of a graph with at least one edge into it
+    if (!first.isLeaf) {
+      assertEquals(IncrementalActualizer.INFEASIBLE, timed.moveTask(first, 0, graph.size - 1))
+      timed.rollback()
+      assertTrue(timed.isFeasible)
+    }
+  }
+
+  @Test
+  def editsUndoingACycleAreTimed(): Unit = {
+    val graph = GraphGenerator.genericGraph(30)
+    val timed = new IncrementalActualizer(util.Arrays.asList(
+      new TaskQueue(MachineType.SMALL, graph)))
+    val first = graph.get(0)
+
+    // the second move breaks the cycle the first one closed, and the tasks
+    // the first one touched are timed once it does
+    if (!first.isLeaf) {
+      assertEquals(IncrementalActualizer.INFEASIBLE, timed.moveTask(first, 0, graph.size - 1))
+      val tail = timed.splitQueue(0, graph.size - 1)
+      assertTrue(timed.isFeasible)
+      timed.commit()
+      assertEquals(1, timed.getQueueSize(tail))
+      assertMatchesFullActualization(timed)
+    }
+  }
+
+  @Test
+  def randomEditsMatchFullActualization(): Unit = {
+    val graph = GraphGenerator.genericGraph(60)
+    val timed = new IncrementalActualizer(singletons(graph))
+    val random = new Random(7)
+
+    for (_ <- 0 until 200) {
+      val live = (0 until graph.size).filter(timed.getQueueSize(_) > 0)
+      val task = graph.get(random.nextInt(graph.size))
+      val to = live(random.nextInt(live.size))
+      val slots = timed.getQueueSize(to) + (if (timed.getQueueHandle(task) == to) 0 else 1)
+      timed.moveTask(task, to, random.nextInt(slots))
+
+      if (timed.isFeasible && random.nextBoolean()) {
+        timed.commit()
+        assertMatchesFullActualization(timed)
+      } else {
+        timed.rollback()
+      }
+    }
+
+    assertMatchesFullActualization(timed)
+  }
+
+  @Test
+  def copiesAreIndependent(): Unit = {
+    val graph = GraphGenerator.genericGraph(40)
+    val timed = new IncrementalActualizer(singletons(graph))
+    timed.mergeQueues(0, 1, MachineType.SMALL)
+    timed.commit()
+
+    val copy = timed.copy()
+    assertEquals(timed.getCost, copy.getCost)
+
+    copy.mergeQueues(0, 2, MachineType.SMALL)
+    copy.commit()
+    assertEquals(1, timed.getQueueSize(2))
+    assertMatchesFullActualization(timed)
+    assertMatchesFullActualization(copy)
+
+    // uncommitted edits cannot be copied
+    timed.mergeQueues(0, 3, MachineType.SMALL)
+    try {
+      timed.copy()
+      fail()
+    } catch {
+      case _: DAGException =>
+    }
+  }
+
+  @Test
+  def queuesStartWithTheirEarliestTask(): Unit = {
+    // a LARGE latency can be negative, so a ends before it starts and b starts before a
+    val x = new Task(0, MachineType.latencyMap(100))
+    val a = new Task(1, MachineType.latencyMap(-80))
+    val b = new Task(2, MachineType.latencyMap(10))
+    a.addDependency(5, x)
+
+    val queues = util.Arrays.asList(
+      new TaskQueue(MachineType.SMALL, util.Arrays.asList(x)),
+      new TaskQueue(MachineType.LARGE, util.Arrays.asList(a, b)))
+    val timed = new IncrementalActualizer(queues)
+    assertTrue(timed.getStartEndTime(b).getStart < timed.getStartEndTime(a).getStart)
+
+    assertMatchesFullActualization(timed)
+    assertEquals(timed.getCost, CostAnalyzer.costOf(queues))
+  }
+}
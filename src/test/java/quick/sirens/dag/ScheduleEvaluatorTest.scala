@@ -0,0 +1,77 @@
+package quick.sirens.dag
+
+import java.util
+import java.util.concurrent.{Callable, Executors}
+
+import org.junit.Assert._
+import org.junit.Test
+import sirens.dag.{Actualizer, CostAnalyzer, ScheduleEvaluator}
+import sirens.experiments.GraphGenerator
+import sirens.models.{Task, TaskGraph, TaskQueue}
+import sirens.models.states.MachineType
+
+import scala.collection.JavaConverters._
+import scala.util.Random
+
+class ScheduleEvaluatorTest {
+  // cut the graph into random contiguous queues
+  private def randomQueues(graph: util.List[Task], random: Random): util.List[TaskQueue] = {
+    val tqs = new util.ArrayList[TaskQueue]()
+    tqs.add(new TaskQueue(MachineType.SMALL))
+    graph.asScala.foreach { t =>
+      if (random.nextInt(4) == 0 && !tqs.get(tqs.size - 1).getTasks.isEmpty)
+        tqs.add(new TaskQueue(MachineType.SMALL))
+      tqs.get(tqs.size - 1).add(t)
+    }
+    tqs
+  }
+
+  @Test
+  def matchesActualizer(): Unit = {
+    val graph = GraphGenerator.genericGraph(60)
+    val random = new Random(3)
+
+    for (_ <- 0 until 20) {
+      val tqs = randomQueues(graph, random)
+      val latency = CostAnalyzer.latencyOf(tqs)
+      val cost = CostAnalyzer.costOf(tqs)
+
+      val built = Actualizer.actualize(tqs)
+      assertEquals(CostAnalyzer.getLatency(built), latency)
+      assertEquals(CostAnalyzer.findCostOfBuiltTasks(built), cost)
+    }
+  }
+
+  @Test
+  def doesNotTouchTasks(): Unit = {
+    val graph = GraphGenerator.genericGraph(30)
+    val tqs = randomQueues(graph, new Random(5))
+
+    ScheduleEvaluator.forQueues(tqs).evaluate(tqs)
+    graph.asScala.foreach { t =>
+      assertFalse(t.isBuilt)
+      assertNull(t.getTaskQueue)
+    }
+  }
+
+  @Test
+  def scoresInParallel(): Unit = {
+    val graph = GraphGenerator.genericGraph(60)
+    val random = new Random(11)
+    val candidates = (0 until 64).map(_ => randomQueues(graph, random))
+
+    val expected = candidates.map(CostAnalyzer.latencyOf)
+
+    val pool = Executors.newFixedThreadPool(4)
+    try {
+      val futures = candidates.map { tqs =>
+        pool.submit(new Callable[Integer] {
+          override def call(): Integer = ScheduleEvaluator.forCurrentThread(TaskGraph.of(graph)).getLatency(tqs)
+        })
+      }
+      assertEquals(expected, futures.map(_.get.intValue))
+    } finally {
+      pool.shutdown()
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package quick.sirens.dag
+
+import org.junit.Assert._
+import org.junit.Test
+import sirens.dag.{LongMaxHeap, TopologicalOrders}
+import sirens.experiments.GraphGenerator
+import sirens.models.TaskGraph
+
+class TopologicalOrdersTest {
+  private val tasks = GraphGenerator.genericGraph(60)
+  private val graph = TaskGraph.of(tasks)
+
+  private def positions(order: Array[Int]): Array[Int] = {
+    val pos = new Array[Int](order.length)
+    for (i <- order.indices) pos(order(i)) = i
+    pos
+  }
+
+  private def assertForward(order: Array[Int]): Unit = {
+    assertEquals(graph.size, order.length)
+    val pos = positions(order)
+    for (t <- 0 until graph.size; k <- graph.childrenStart(t) until graph.childrenEnd(t))
+      assertTrue(pos(t) < pos(graph.childAt(k)))
+  }
+
+  @Test def forwardAndReverseRespectEdges(): Unit = {
+    val orders = TopologicalOrders.of(graph)
+    assertForward(orders.forward())
+    assertForward(orders.reverse().reverse)
+  }
+
+  @Test def ordersAreCachedPerGraph(): Unit = {
+    assertSame(TopologicalOrders.of(graph), TopologicalOrders.of(tasks))
+    assertSame(TopologicalOrders.of(graph).forward(), TopologicalOrders.of(graph).forward())
+  }
+
+  @Test def priorityBreaksTies(): Unit = {
+    // preferring the highest index still has to respect every edge
+    val order = TopologicalOrders.of(graph).byPriority(i => -i)
+    assertForward(order)
+
+    val sources = (0 until graph.size).filter(graph.inDegree(_) == 0)
+    assertEquals(sources.max, order(0))
+  }
+
+  @Test def scratchOrdersMatch(): Unit = {
+    val orders = TopologicalOrders.of(graph)
+    val (pending, ready, out) = (new Array[Int](graph.size), new LongMaxHeap(graph.size), new Array[Int](graph.size))
+
+    // the same scratch, twice over
+    for (sign <- List(1, -1)) {
+      val expected = orders.byPriority(i => sign * i)
+      assertSame(out, orders.byPriority(i => sign * i, pending, ready, out))
+      assertArrayEquals(expected, out)
+    }
+  }
+}
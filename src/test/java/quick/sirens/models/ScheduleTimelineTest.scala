@@ -0,0 +1,26 @@
+package quick.sirens.models
+
+import org.junit.Assert._
+import org.junit.Test
+import sirens.models.ScheduleTimeline
+
+class ScheduleTimelineTest {
+  @Test
+  def resetForgetsTimes(): Unit = {
+    val timeline = new ScheduleTimeline(3)
+    timeline.set(1, 10, 40, 30)
+
+    assertTrue(timeline.isTimed(1))
+    assertFalse(timeline.isTimed(0))
+    assertEquals(10, timeline.getStart(1))
+    assertEquals(40, timeline.getEnd(1))
+    assertEquals(30, timeline.getNetworkingStart(1))
+
+    timeline.reset()
+    assertFalse(timeline.isTimed(1))
+
+    timeline.set(1, 0, 5, 5)
+    assertTrue(timeline.isTimed(1))
+    assertEquals(5, timeline.getStartEndTime(1).getDuration)
+  }
+}
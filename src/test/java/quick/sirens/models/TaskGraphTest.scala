@@ -0,0 +1,88 @@
+package quick.sirens.models
+
+import java.util
+
+import org.junit.Assert._
+import org.junit.Test
+import sirens.dag.DAGException
+import sirens.experiments.GraphGenerator
+import sirens.models.{Task, TaskGraph}
+import sirens.models.states.MachineType
+
+import scala.collection.JavaConverters._
+
+class TaskGraphTest {
+  private def diamond(): util.List[Task] = {
+    val tasks = (0 until 4).map(i => new Task(i, MachineType.latencyMap(10 * (i + 1)))).toList
+    tasks(1).addDependency(5, tasks(0))
+    tasks(2).addDependency(7, tasks(0))
+    tasks(3).addDependency(11, tasks(1))
+    tasks(3).addDependency(13, tasks(2))
+    tasks.asJava
+  }
+
+  @Test def compressedRows(): Unit = {
+    val tasks = diamond()
+    val graph = TaskGraph.of(tasks)
+
+    assertEquals(4, graph.size)
+    assertEquals(4, graph.edgeCount)
+    assertEquals(2, graph.outDegree(0))
+    assertEquals(2, graph.inDegree(3))
+    assertEquals(7, graph.getEdgeWeight(0, 2))
+    assertEquals(0, graph.getEdgeWeight(2, 0))
+    assertEquals(40, graph.getLatency(3, MachineType.SMALL))
+
+    val children = (graph.childrenStart(0) until graph.childrenEnd(0)).map(graph.childAt).toList
+    assertEquals(List(1, 2), children)
+  }
+
+  @Test def tasksBecomeViews(): Unit = {
+    val tasks = diamond()
+    TaskGraph.of(tasks)
+
+    val sink = tasks.get(3)
+    assertEquals(new Integer(11), sink.getDependencies.get(tasks.get(1)))
+    assertTrue(sink.getDependencies.containsKey(tasks.get(2)))
+    assertFalse(sink.getDependencies.containsKey(tasks.get(0)))
+    assertEquals(13, sink.getCostTo(tasks.get(2)))
+    assertEquals(24, sink.edgeWeight)
+    assertTrue(sink.isLeaf)
+    assertTrue(tasks.get(0).isSource)
+    assertEquals(new Integer(40), sink.getLatencies.get(MachineType.LARGE))
+  }
+
+  @Test def viewLookupsMatchTheRows(): Unit = {
+    val tasks = GraphGenerator.genericGraph(40)
+    val graph = TaskGraph.of(tasks)
+
+    for (p <- tasks.asScala; c <- tasks.asScala) {
+      val weight = graph.getEdgeWeight(p.getIndex, c.getIndex)
+      assertEquals(weight != 0, c.getDependencies.containsKey(p))
+      assertEquals(weight != 0, p.getDependents.containsKey(c))
+      if (weight != 0) {
+        assertEquals(weight, c.getDependencies.get(p).intValue)
+        assertEquals(weight, p.getDependents.get(c).intValue)
+      }
+    }
+  }
+
+  @Test def ofIsIdempotent(): Unit = {
+    val tasks = diamond()
+    val graph = TaskGraph.of(tasks)
+    assertSame(graph, TaskGraph.of(tasks))
+  }
+
+  @Test(expected = classOf[DAGException]) def frozenGraphsAreImmutable(): Unit = {
+    val tasks = diamond()
+    TaskGraph.of(tasks)
+    tasks.get(3).addDependency(1, tasks.get(0))
+  }
+
+  @Test def generatedGraphsAreFrozen(): Unit = {
+    val graph = GraphGenerator.genericGraph(40)
+    val taskGraph = graph.get(0).getGraph
+    assertNotNull(taskGraph)
+    graph.asScala.foreach(t => assertEquals(t.getID, t.getIndex))
+  }
+}
@@ -0,0 +1,52 @@
+package quick.sirens.schedulers
+
+import java.util
+
+import org.junit.Assert._
+import org.junit.Test
+import sirens.dag.{Actualizer, CostAnalyzer, DAGGenerator}
+import sirens.experiments.GraphGenerator
+import sirens.models.{Task, TaskQueue}
+import sirens.models.states.MachineType
+import sirens.schedulers.DynamicCriticalPath
+
+import scala.collection.JavaConverters._
+
+class DynamicCriticalPathTest {
+  private def verifySchedule(graph: util.List[Task], schedule: util.List[TaskQueue]): Unit = {
+    val scheduled = schedule.asScala.flatMap(_.getTasks.asScala)
+    assertEquals(graph.size, scheduled.size)
+    assertEquals(graph.size, scheduled.toSet.size)
+
+    // building it would throw if the queues contradicted the dependencies
+    CostAnalyzer.findCostOfBuiltTasks(Actualizer.actualize(schedule))
+  }
+
+  @Test
+  def generateScheduleWithGenericGraph(): Unit = {
+    val graph = GraphGenerator.genericGraph(200)
+    verifySchedule(graph, new DynamicCriticalPath().generateSchedule(graph, MachineType.SMALL))
+  }
+
+  @Test
+  def generateScheduleWithSparseLU(): Unit = {
+    val graph = DAGGenerator.verticesToTasks(DAGGenerator.getSparseLU(10))
+    verifySchedule(graph, new DynamicCriticalPath().generateSchedule(graph, MachineType.SMALL))
+  }
+
+  @Test
+  def chainsShareAMachine(): Unit = {
+    // sending anything costs more than running everything in a row
+    val a = new Task(0, MachineType.latencyMap(10))
+    val b = new Task(1, MachineType.latencyMap(20))
+    val c = new Task(2, MachineType.latencyMap(30))
+    b.addDependency(100, a)
+    c.addDependency(100, b)
+
+    val graph = util.Arrays.asList(a, b, c)
+    val schedule = new DynamicCriticalPath().generateSchedule(graph, MachineType.SMALL)
+    assertEquals(1, schedule.size)
+    assertEquals(graph, schedule.get(0).getTasks)
+    assertEquals(60 + 60, CostAnalyzer.latencyOf(schedule))
+  }
+}
@@ -124,4 +124,31 @@ class EdgeZeroTest {
     val builtGraph = build(gg)
     verifyGraph(builtGraph)
   }
+
+  @Test
+  def zeroingNeverLengthensTheSchedule(): Unit = {
+    val gg = GGen.staticGraph
+      .forkJoin(10, 15)
+      .vertexProperty("latency")
+      .uniform(10, 60)
+      .edgeProperty("networking")
+      .uniform(10, 60)
+      .generateGraph
+      .topoSort
+    val tasks = TopologicalSorter.mapToTaskList(gg.allVertices)
+    val schedule = new EdgeZero().generateSchedule(tasks, MachineType.SMALL)
+
+    val singletons = new util.ArrayList[TaskQueue]()
+    tasks.forEach { t: Task =>
+      val tq = new TaskQueue(MachineType.SMALL)
+      tq.add(t)
+      singletons.add(tq)
+    }
+
+    val scheduled = new util.HashSet[Task]()
+    schedule.forEach((tq: TaskQueue) => tq.getTasks.forEach((t: Task) => assertTrue(scheduled.add(t))))
+    assertEquals(tasks.size, scheduled.size)
+    assertTrue(schedule.size < tasks.size)
+    assertTrue(CostAnalyzer.latencyOf(schedule) <= CostAnalyzer.latencyOf(singletons))
+  }
 }
@@ -1,7 +1,7 @@
 package quick.sirens.schedulers
 
-import sirens.dag.{Actualizer, TopologicalSorter}
-import sirens.models.Task
+import sirens.dag.{Actualizer, DAGGenerator, GraphLevels, TopologicalSorter}
+import sirens.models.{Task, TaskGraph}
 import org.junit.Test
 import java.util
 
@@ -139,4 +139,62 @@ class LinearClusterTest {
 
     assert(levels.nonEmpty)
   }
+
+  private def checkPaths(graph: util.List[Task], machineType: MachineType): Unit = {
+    val schedule = new LinearCluster().generateSchedule(graph, machineType).asScala
+
+    // every task is scheduled once, and outside the queue of independent tasks
+    // each task depends on the one before it
+    val scheduled = schedule.flatMap(_.getTasks.asScala)
+    assertEquals(graph.size, scheduled.size)
+    assertEquals(graph.size, scheduled.toSet.size)
+
+    val paths = schedule.map(_.getTasks.asScala).filterNot(_.forall(_.isIndependent))
+    paths.foreach { queue =>
+      queue.sliding(2).filter(_.size == 2).foreach { pair =>
+        assertTrue(pair(1).getDependencies.containsKey(pair(0)))
+      }
+    }
+
+    // the first path peeled off is a critical one
+    val first = paths.head
+    val length = first.map(_.getLatencies.get(machineType).intValue).sum +
+      first.sliding(2).filter(_.size == 2).map(p => p(1).getDependencies.get(p(0)).intValue).sum
+    assertEquals(GraphLevels.of(TaskGraph.of(graph), machineType).getCriticalPathLength, length)
+  }
+
+  @Test
+  def clustersArePaths() {
+    checkPaths(GraphGenerator.genericGraph(200), MachineType.SMALL)
+
+    // LARGE latencies can be negative, and so can the paths below a task
+    checkPaths(DAGGenerator.verticesToTasks(DAGGenerator.getSparseLU(10)), MachineType.LARGE)
+
+    val a = new Task(0, MachineType.latencyMap(10))
+    val b = new Task(1, MachineType.latencyMap(-50))
+    val c = new Task(2, MachineType.latencyMap(10))
+    b.addDependency(5, a)
+    c.addDependency(5, a)
+    checkPaths(util.Arrays.asList(a, b, c), MachineType.LARGE)
+  }
+
+  @Test
+  def pathsFollowClaimedDescendants() {
+    // a's longest path runs through its grandchild c, but x claims c first.
+    // What's left below a is then a -> d, not a -> b
+    val a = new Task(0, MachineType.latencyMap(1))
+    val b = new Task(1, MachineType.latencyMap(1))
+    val x = new Task(2, MachineType.latencyMap(200))
+    val c = new Task(3, MachineType.latencyMap(100))
+    val d = new Task(4, MachineType.latencyMap(50))
+    b.addDependency(0, a)
+    c.addDependency(0, b)
+    c.addDependency(0, x)
+    d.addDependency(0, a)
+
+    val graph = util.Arrays.asList(a, b, x, c, d)
+    val schedule = new LinearCluster().generateSchedule(graph, MachineType.SMALL).asScala
+    assertEquals(List(List(x, c), List(a, d), List(b)), schedule.map(_.getTasks.asScala.toList).toList)
+    checkPaths(graph, MachineType.SMALL)
+  }
 }
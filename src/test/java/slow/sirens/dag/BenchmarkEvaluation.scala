@@ -0,0 +1,51 @@
+package slow.sirens.dag
+
+import java.lang.management.ManagementFactory
+
+import org.junit.Assert._
+import org.junit.Test
+import sirens.dag.ScheduleEvaluator
+import sirens.experiments.GraphGenerator
+import sirens.models.{TaskGraph, TaskQueue}
+import sirens.models.states.MachineType
+
+import scala.collection.JavaConverters._
+
+class BenchmarkEvaluation {
+  private val threads = ManagementFactory.getThreadMXBean.asInstanceOf[com.sun.management.ThreadMXBean]
+
+  private def allocatedBytes(): Long = threads.getThreadAllocatedBytes(Thread.currentThread.getId)
+
+  @Test
+  def evaluateDoesNotAllocate(): Unit = {
+    val graph = GraphGenerator.genericGraph(500)
+    val tqs = graph.asScala.grouped(10).map { chunk =>
+      new TaskQueue(MachineType.SMALL, chunk.asJava)
+    }.toList.asJava
+
+    val eval = new ScheduleEvaluator(TaskGraph.of(graph))
+    val iterations = 20000
+
+    // warm up so the JIT has compiled (and escape-analysed) the loop
+    (0 until iterations).foreach(_ => eval.evaluate(tqs).getCost)
+
+    var checksum = 0L
+    val start = System.nanoTime()
+    val before = allocatedBytes()
+    var i = 0
+    while (i < iterations) {
+      val state = eval.evaluate(tqs)
+      checksum += state.getLatency + state.getCost
+      i += 1
+    }
+    val after = allocatedBytes()
+    val elapsed = System.nanoTime() - start
+
+    val perEvaluation = (after - before).toDouble / iterations
+    println(s"Evaluations per second: ${iterations * 1e9 / elapsed} ($checksum)")
+    println(s"Bytes allocated per evaluation: $perEvaluation")
+
+    // a few iterators at most, never anything per task
+    assertTrue(perEvaluation < 256)
+  }
+}
@@ -12,7 +12,7 @@ class BenchmarkErdos {
       val start = System.currentTimeMillis()
 
       val graph = GraphGenerator.genericGraph(100)
-      DynamicCriticalPath.generateSchedule(graph, machineType = MachineType.SMALL)
+      val schedule = new DynamicCriticalPath().generateSchedule(graph, machineType = MachineType.SMALL)
 
       val end = System.currentTimeMillis()
       println(s"Time to Schedule with Dynamic Critical Path: ${end - start} milliseconds")
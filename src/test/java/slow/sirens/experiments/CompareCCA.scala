@@ -0,0 +1,32 @@
+package slow.sirens.experiments
+
+import java.util
+
+import info.rmarcus.dag.cca.CCAScheduler
+import info.rmarcus.javautil.ExecutionPolicy
+import org.junit.Test
+import sirens.dag.{Actualizer, CostAnalyzer, DAGGenerator}
+import sirens.models.{Task, TaskQueue}
+
+class CompareCCA {
+  private def run(name: String, tasks: util.List[Task]): Unit = {
+    def time(mode: String, schedule: CCAScheduler => util.Collection[TaskQueue]): Unit = {
+      val cca = new CCAScheduler(tasks)
+      val start = System.currentTimeMillis()
+      val cost = CostAnalyzer.findCostOfBuiltTasks(Actualizer.actualize(schedule(cca)))
+      val end = System.currentTimeMillis()
+      println(s"$name,$mode,${tasks.size},$cost,${cca.getRounds},${end - start}")
+    }
+
+    time("classic", _.schedule(1000))
+    time("batched", _.batchedSchedule(ExecutionPolicy.fromSystemProperties()))
+  }
+
+  @Test
+  def compare(): Unit = {
+    println("graph,mode,tasks,cost,rounds,ms")
+    run("cholesky", DAGGenerator.verticesToTasks(DAGGenerator.getCholesky(8)))
+    run("forkJoin", DAGGenerator.verticesToTasks(DAGGenerator.getForkJoin(20)))
+    run("sparseLU", DAGGenerator.verticesToTasks(DAGGenerator.getSparseLU(20)))
+  }
+}